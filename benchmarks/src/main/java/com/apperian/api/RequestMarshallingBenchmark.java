@@ -0,0 +1,68 @@
+package com.apperian.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.jenkinsci.plugins.ease.ProxySettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apperian.api.application.UpdateApplicationMetadataRequest;
+import com.apperian.api.metadata.Metadata;
+import com.apperian.api.publishing.PublishApplicationRequest;
+
+/**
+ * Building http requests from API request objects. Lives in the API
+ * package to reach {@link EASEEndpoint#buildJsonRpcPost(EASERequest)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMarshallingBenchmark {
+    private EASEEndpoint easeEndpoint;
+    private ApperianEndpoint apperianEndpoint;
+    private PublishApplicationRequest publishRequest;
+    private UpdateApplicationMetadataRequest metadataRequest;
+
+    @Setup
+    public void setUp() {
+        easeEndpoint = new EASEEndpoint("http://localhost/ease.interface.php", ProxySettings.DIRECT);
+        easeEndpoint.restoreSession("token");
+        apperianEndpoint = new ApperianEndpoint("http://localhost/v1", ProxySettings.DIRECT);
+        apperianEndpoint.restoreSession("token");
+
+        Map<String, String> values = new HashMap<>();
+        values.put(Metadata.KnownFields.NAME, "Benchmark app");
+        values.put(Metadata.KnownFields.VERSION, "1.0.0");
+        values.put(Metadata.KnownFields.VERSION_NOTES, "Built by benchmark");
+        publishRequest = ApperianEaseApi.PUBLISHING.publish("tx-1", new Metadata(values), "file-1");
+        publishRequest.params.token = "token";
+
+        metadataRequest = ApperianEaseApi.APPLICATIONS.updateApplicationMetadata(new ApperianResourceID("1234"))
+                                                      .setEnabled(true);
+    }
+
+    @Benchmark
+    public HttpPost buildJsonRpcPost() {
+        return easeEndpoint.buildJsonRpcPost(publishRequest);
+    }
+
+    @Benchmark
+    public HttpUriRequest buildHttpRequest() {
+        return metadataRequest.buildHttpRequest(apperianEndpoint, apperianEndpoint.getMapper());
+    }
+}
@@ -0,0 +1,148 @@
+package com.apperian.api.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Synthetic API payloads and application archives of configurable size.
+ */
+public class Fixtures {
+    private Fixtures() {
+    }
+
+    public static byte[] applicationList(int count) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"id\":1,\"jsonrpc\":\"2.0\",\"apiVersion\":\"1.0\",\"result\":{\"applications\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"ID\":\"app").append(i).append('"')
+              .append(",\"author\":\"Author ").append(i).append('"')
+              .append(",\"bundleId\":\"com.example.app").append(i).append('"')
+              .append(",\"longdescription\":\"Long description of application number ").append(i).append('"')
+              .append(",\"name\":\"Application ").append(i).append('"')
+              .append(",\"shortdescription\":\"Application ").append(i).append('"')
+              .append(",\"status\":\"1\"")
+              .append(",\"type\":\"").append(i % 2 == 0 ? "Android" : "iOS").append('"')
+              .append(",\"version\":\"1.").append(i).append('"')
+              .append(",\"versionNotes\":\"notes\"}");
+        }
+        sb.append("]}}");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    public static byte[] signingCredentials(int count) throws UnsupportedEncodingException {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"credentials\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"psk\":").append(1000 + i)
+              .append(",\"description\":\"Signing credential ").append(i).append('"')
+              .append(",\"expiration_date\":\"2020-01-").append(10 + i % 20).append("T00:00:00+00:00\"")
+              .append(",\"platform\":").append(i % 2 + 1).append('}');
+        }
+        sb.append("]}");
+        return sb.toString().getBytes("UTF-8");
+    }
+
+    public enum Archive {
+        IPA("ipa"), APK("apk"), APPX("appx"), BAR("bar");
+
+        final String extension;
+
+        Archive(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * Writes an application package of the given type with
+     * <code>paddingEntries</code> extra entries of <code>paddingBytes</code>
+     * random bytes each, placed before the descriptor the extractor looks for.
+     */
+    public static File archive(Archive type, int paddingEntries, int paddingBytes) throws IOException {
+        File file = File.createTempFile("benchmark", "." + type.extension);
+        file.deleteOnExit();
+
+        Random random = new Random(paddingEntries);
+        byte[] padding = new byte[paddingBytes];
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < paddingEntries; i++) {
+                random.nextBytes(padding);
+                zip.putNextEntry(new ZipEntry(paddingPath(type) + "res" + i + ".bin"));
+                zip.write(padding);
+                zip.closeEntry();
+            }
+
+            switch (type) {
+                case IPA:
+                    put(zip, "Payload/Benchmark.app/Info.plist",
+                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?><plist version=\"1.0\"><dict>" +
+                        "<key>CFBundleDisplayName</key><string>Benchmark</string>" +
+                        "<key>CFBundleVersion</key><string>1.0.0</string>" +
+                        "</dict></plist>");
+                    break;
+                case APK:
+                    copyEntries(zip, Fixtures.class.getResourceAsStream("android.apk"));
+                    break;
+                case APPX:
+                    put(zip, "AppxManifest.xml",
+                        "<?xml version=\"1.0\" encoding=\"utf-8\"?>" +
+                        "<Package xmlns=\"http://schemas.microsoft.com/appx/2010/manifest\">" +
+                        "<Identity Name=\"Benchmark\" Publisher=\"CN=Benchmark\" Version=\"1.0.0.0\"/>" +
+                        "<Properties><DisplayName>Benchmark</DisplayName>" +
+                        "<PublisherDisplayName>Benchmark Inc</PublisherDisplayName></Properties>" +
+                        "<Applications><Application Id=\"App\">" +
+                        "<VisualElements Description=\"Benchmark application\"/>" +
+                        "</Application></Applications></Package>");
+                    break;
+                case BAR:
+                    put(zip, "Benchmark.alx",
+                        "<?xml version=\"1.0\" encoding=\"UTF-8\"?><loader version=\"1.0\">" +
+                        "<application id=\"Benchmark\"><name>Benchmark</name><version>1.0.0</version>" +
+                        "<description>Benchmark application</description></application></loader>");
+                    break;
+            }
+        }
+        return file;
+    }
+
+    private static String paddingPath(Archive type) {
+        switch (type) {
+            case IPA: return "Payload/Benchmark.app/";
+            case APK: return "res/raw/";
+            default: return "Assets/";
+        }
+    }
+
+    private static void put(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes("UTF-8"));
+        zip.closeEntry();
+    }
+
+    private static void copyEntries(ZipOutputStream zip, InputStream source) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (ZipInputStream in = new ZipInputStream(source)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                zip.putNextEntry(new ZipEntry(entry.getName()));
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, n);
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.apperian.api.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apperian.api.ApiMappers;
+import com.apperian.api.ApperianEaseApi;
+import com.apperian.api.metadata.Metadata;
+import com.apperian.api.publishing.ApplicationListResponse;
+import com.apperian.api.publishing.PublishApplicationRequest;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Per-call cost of JSON marshalling: a mapper created for every call
+ * (as endpoints did before) against readers and writers from {@link ApiMappers}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+    @Param({"10", "1000"})
+    public int applications;
+
+    private byte[] listResponse;
+    private PublishApplicationRequest publishRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        listResponse = Fixtures.applicationList(applications);
+
+        Map<String, String> values = new HashMap<>();
+        values.put(Metadata.KnownFields.NAME, "Benchmark app");
+        values.put(Metadata.KnownFields.VERSION, "1.0.0");
+        values.put(Metadata.KnownFields.SHORT_DESCRIPTION, "short");
+        values.put(Metadata.KnownFields.LONG_DESCRIPTION, "long description");
+        publishRequest = ApperianEaseApi.PUBLISHING.publish("tx-1", new Metadata(values), "file-1");
+        publishRequest.params.token = "token";
+    }
+
+    @Benchmark
+    public ApplicationListResponse readPerCallMapper() throws IOException {
+        return newMapper().readValue(listResponse, ApplicationListResponse.class);
+    }
+
+    @Benchmark
+    public ApplicationListResponse readSharedReader() throws IOException {
+        return ApiMappers.getInstance()
+                .readerFor(ApplicationListResponse.class)
+                .readValue(listResponse);
+    }
+
+    @Benchmark
+    public byte[] writePerCallMapper() throws IOException {
+        return newMapper().writeValueAsBytes(publishRequest);
+    }
+
+    @Benchmark
+    public byte[] writeSharedWriter() throws IOException {
+        return ApiMappers.getInstance()
+                .writerFor(PublishApplicationRequest.class)
+                .writeValueAsBytes(publishRequest);
+    }
+
+    private static ObjectMapper newMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+}
@@ -0,0 +1,100 @@
+package com.apperian.api.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apperian.api.metadata.AndroidMetadataExtractor;
+import com.apperian.api.metadata.ArchiveIndex;
+import com.apperian.api.metadata.BlackberryMetadataExtractor;
+import com.apperian.api.metadata.IOSMetadataExtractor;
+import com.apperian.api.metadata.Metadata;
+import com.apperian.api.metadata.MetadataExtractor;
+import com.apperian.api.metadata.WinPhoneAppxMetadataExtractor;
+
+/**
+ * Metadata extraction from synthetic packages: the matching extractor
+ * alone, and detection plus extraction as done before publishing.
+ * Size of a package is set by the number and size of padding entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataExtractorBenchmark {
+    private static final PrintStream NO_LOG = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+
+    @Param({"IPA", "APK", "APPX", "BAR"})
+    public Fixtures.Archive archive;
+
+    @Param({"10", "2000"})
+    public int paddingEntries;
+
+    @Param({"1024", "65536"})
+    public int paddingBytes;
+
+    private File file;
+    private MetadataExtractor extractor;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Fixtures.archive(archive, paddingEntries, paddingBytes);
+        switch (archive) {
+            case IPA: extractor = new IOSMetadataExtractor(); break;
+            case APK: extractor = new AndroidMetadataExtractor(); break;
+            case APPX: extractor = new WinPhoneAppxMetadataExtractor(); break;
+            case BAR: extractor = new BlackberryMetadataExtractor(); break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public Metadata extract() throws IOException {
+        Metadata metadata = new Metadata(new HashMap<String, String>());
+        try (ArchiveIndex index = new ArchiveIndex(file)) {
+            if (!extractor.extractTo(metadata, index, NO_LOG)) {
+                throw new IllegalStateException("no metadata extracted from " + archive);
+            }
+        }
+        return metadata;
+    }
+
+    @Benchmark
+    public Metadata detectAndExtract() throws IOException {
+        Metadata metadata = new Metadata(new HashMap<String, String>());
+        try (ArchiveIndex index = new ArchiveIndex(file)) {
+            for (MetadataExtractor candidate : MetadataExtractor.extractorsFor(index)) {
+                if (candidate.extractTo(metadata, index, NO_LOG)) {
+                    return metadata;
+                }
+            }
+        }
+        throw new IllegalStateException("no metadata extracted from " + archive);
+    }
+}
@@ -0,0 +1,59 @@
+package com.apperian.api.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.apperian.api.JsonResponseReader;
+import com.apperian.api.publishing.ApplicationListResponse;
+import com.apperian.api.signing.ListAllSigningCredentialsResponse;
+
+/**
+ * Parsing of large list responses from an http entity, the way endpoints read them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseParsingBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int items;
+
+    private byte[] applicationList;
+    private byte[] signingCredentials;
+
+    @Setup
+    public void setUp() throws IOException {
+        applicationList = Fixtures.applicationList(items);
+        signingCredentials = Fixtures.signingCredentials(items);
+    }
+
+    @Benchmark
+    public ApplicationListResponse parseApplicationList() throws IOException {
+        return JsonResponseReader.getInstance().read(entity(applicationList), ApplicationListResponse.class);
+    }
+
+    @Benchmark
+    public ListAllSigningCredentialsResponse parseSigningCredentials() throws IOException {
+        return JsonResponseReader.getInstance().read(entity(signingCredentials), ListAllSigningCredentialsResponse.class);
+    }
+
+    private static ByteArrayEntity entity(byte[] content) {
+        return new ByteArrayEntity(content, ContentType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hudson.EnvVars;
+import hudson.util.Function1;
+
+/**
+ * Expansion of all uploads of a job as done by {@link EaseRecorder}:
+ * against an environment computed for every field, as before, and
+ * against one snapshot per build. Computing the environment is stood in
+ * for by merging system, node and build variables, which is the cheap
+ * end of what <code>getEnvironment</code> does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableExpansionBenchmark {
+    @Param({"50"})
+    public int uploadCount;
+
+    @Param({"50", "500"})
+    public int variableCount;
+
+    private List<EaseUpload> uploads;
+    private Map<String, String> system;
+    private Map<String, String> node;
+    private Map<String, String> build;
+
+    @Setup
+    public void setUp() {
+        system = new TreeMap<>(System.getenv());
+        node = new TreeMap<>();
+        build = new TreeMap<>();
+        for (int i = 0; i < variableCount; i++) {
+            node.put("NODE_PROPERTY_" + i, "value-" + i);
+        }
+        build.put("BUILD_NUMBER", "42");
+        build.put("JOB_NAME", "mobile-release");
+        build.put("APP_VERSION", "1.2.$BUILD_NUMBER");
+        build.put("EASE_HOST", "easesvc.example.com");
+
+        uploads = new ArrayList<>(uploadCount);
+        for (int i = 0; i < uploadCount; i++) {
+            uploads.add(new EaseUpload("CUSTOM",
+                                       "https://${EASE_HOST}/ease.interface.php",
+                                       "https://${EASE_HOST}/v1",
+                                       "build-${JOB_NAME}",
+                                       "password",
+                                       "APP_ID_" + i,
+                                       "**/app-" + i + "-${BUILD_NUMBER}.apk",
+                                       "Jenkins ${JOB_NAME}",
+                                       "${APP_VERSION}",
+                                       "Build ${BUILD_NUMBER} of ${JOB_NAME}",
+                                       true,
+                                       "CREDENTIAL_${BUILD_NUMBER}",
+                                       true,
+                                       false,
+                                       false));
+        }
+    }
+
+    @Benchmark
+    public List<EaseUpload> environmentPerField() {
+        return expandAll(new Function1<String, String>() {
+            @Override
+            public String call(String value) {
+                return computeEnvironment().expand(value);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<EaseUpload> environmentSnapshot() {
+        return expandAll(new EaseRecorder.ExpandVariablesFunction(computeEnvironment()));
+    }
+
+    private List<EaseUpload> expandAll(Function1<String, String> expandVars) {
+        List<EaseUpload> expanded = new ArrayList<>(uploads.size());
+        for (EaseUpload upload : uploads) {
+            expanded.add(upload.expand(expandVars));
+        }
+        return expanded;
+    }
+
+    private EnvVars computeEnvironment() {
+        EnvVars env = new EnvVars(system);
+        env.putAll(node);
+        env.overrideAll(build);
+        return env;
+    }
+}
@@ -0,0 +1,19 @@
+package com.apperian.api;
+
+import org.apache.http.StatusLine;
+
+/**
+ * API call answered with an unexpected http status.
+ */
+public class ApiCallException extends RuntimeException {
+    private final int statusCode;
+
+    public ApiCallException(StatusLine statusLine, String request) {
+        super("bad API call, http status: " + statusLine + ", request: " + request);
+        this.statusCode = statusLine.getStatusCode();
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,119 @@
+package com.apperian.api;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.apperian.api.metadata.Metadata;
+import com.apperian.api.publishing.UploadResult;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The one {@link ObjectMapper} of the API together with readers and writers
+ * built for API types. Mapper is configured once here and must not be
+ * reconfigured by callers; readers and writers are immutable and thread-safe.
+ */
+public final class ApiMappers {
+    private static final Logger logger = Logger.getLogger(ApiMappers.class.getName());
+
+    /**
+     * Response types, readers are built for them on {@link #warmUp()}.
+     */
+    static final List<Class<?>> RESPONSE_TYPES = Arrays.<Class<?>>asList(
+            com.apperian.api.publishing.AuthenticateUserResponse.class,
+            com.apperian.api.publishing.ApplicationListResponse.class,
+            com.apperian.api.publishing.PublishApplicationResponse.class,
+            com.apperian.api.publishing.UpdateApplicationResponse.class,
+            UploadResult.class,
+            com.apperian.api.users.AuthenticateUserResponse.class,
+            com.apperian.api.application.ApplicationListResponse.class,
+            com.apperian.api.application.GetApplicationInfoResponse.class,
+            com.apperian.api.application.UpdateApplicationMetadataResponse.class,
+            com.apperian.api.signing.ListAllSigningCredentialsResponse.class,
+            com.apperian.api.signing.SignApplicationResponse.class);
+
+    /**
+     * Types sent as request bodies, writers are built for them on {@link #warmUp()}.
+     */
+    static final List<Class<?>> REQUEST_TYPES = Arrays.<Class<?>>asList(
+            com.apperian.api.publishing.AuthenticateUserRequest.class,
+            com.apperian.api.publishing.ApplicationListRequest.class,
+            com.apperian.api.publishing.PublishApplicationRequest.class,
+            com.apperian.api.publishing.UpdateApplicationRequest.class,
+            com.apperian.api.users.AuthenticateUserRequest.Params.class,
+            com.apperian.api.application.ApplicationListRequest.class,
+            com.apperian.api.application.UpdateApplicationMetadataRequest.class,
+            Metadata.class);
+
+    private static final ApiMappers INSTANCE = new ApiMappers();
+
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    private ApiMappers() {
+        mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static ApiMappers getInstance() {
+        return INSTANCE;
+    }
+
+    ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    public ObjectReader readerFor(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = mapper.reader(type);
+            ObjectReader existing = readers.putIfAbsent(type, reader);
+            if (existing != null) {
+                reader = existing;
+            }
+        }
+        return reader;
+    }
+
+    public ObjectWriter writerFor(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = mapper.writerWithType(type);
+            ObjectWriter existing = writers.putIfAbsent(type, writer);
+            if (existing != null) {
+                writer = existing;
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Builds readers and writers for all API types up front,
+     * so the first calls don't pay for introspection.
+     */
+    public void warmUp() {
+        for (Class<?> type : RESPONSE_TYPES) {
+            try {
+                readerFor(type);
+                mapper.canDeserialize(mapper.constructType(type));
+            } catch (RuntimeException ex) {
+                logger.log(Level.FINE, "Failed to prepare reader for " + type, ex);
+            }
+        }
+        for (Class<?> type : REQUEST_TYPES) {
+            try {
+                writerFor(type);
+                mapper.canSerialize(type);
+            } catch (RuntimeException ex) {
+                logger.log(Level.FINE, "Failed to prepare writer for " + type, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.apperian.api;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.FutureCallback;
+
+/**
+ * Plugin wide metrics of the EASE and Apperian APIs, kept in a Dropwizard
+ * {@link MetricRegistry}: call latency and error count per JSON-RPC method
+ * or REST path, uploaded bytes and throughput and login outcomes. Other
+ * parts of the plugin register their gauges here too.
+ *
+ * Names are <code>api.&lt;ease|apperian&gt;.&lt;operation&gt;.latency|errors</code>,
+ * <code>upload.bytes</code>, <code>upload.throughputKBps</code> and
+ * <code>login.&lt;ease|apperian&gt;.success|failure</code>.
+ *
+ * On agents, measurements are also buffered after {@link #startForwarding()}
+ * and sent back to controller with publish results, where
+ * {@link #record(Measurements)} adds them to its registry.
+ */
+public final class ApiMetrics {
+    public static final String EASE = "ease";
+    public static final String APPERIAN = "apperian";
+
+    public static final String JMX_DOMAIN = "com.apperian.ease";
+
+    private static final ApiMetrics INSTANCE = new ApiMetrics();
+
+    private final MetricRegistry registry = new MetricRegistry();
+    private JmxReporter jmxReporter;
+    private Measurements forwarded;
+
+    private ApiMetrics() {
+    }
+
+    public static ApiMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public MetricRegistry getRegistry() {
+        return registry;
+    }
+
+    public Call startCall(String api, String operation) {
+        String prefix = MetricRegistry.name("api", api, operation);
+        return new Call(prefix, registry.timer(prefix + ".latency").time());
+    }
+
+    public void uploaded(long bytes, long nanos) {
+        recordUpload(bytes, nanos);
+        forward(new Sample(Sample.Type.UPLOAD, null, nanos, bytes, false));
+    }
+
+    public void login(String api, boolean success) {
+        recordLogin(api, success);
+        forward(new Sample(Sample.Type.LOGIN, api, 0, 0, success));
+    }
+
+    /**
+     * Buffers measurements made in this JVM from now on, until
+     * {@link #drainForwarded()}.
+     */
+    public synchronized void startForwarding() {
+        if (forwarded == null) {
+            forwarded = new Measurements();
+        }
+    }
+
+    /**
+     * @return measurements buffered since the last call, empty if not forwarding
+     */
+    public synchronized Measurements drainForwarded() {
+        if (forwarded == null) {
+            return new Measurements();
+        }
+        Measurements drained = forwarded;
+        forwarded = new Measurements();
+        return drained;
+    }
+
+    /**
+     * Adds measurements forwarded from an agent.
+     */
+    public void record(Measurements measurements) {
+        if (measurements == null) {
+            return;
+        }
+        for (Sample sample : measurements.samples) {
+            switch (sample.type) {
+                case CALL:
+                    registry.timer(sample.name + ".latency").update(sample.nanos, TimeUnit.NANOSECONDS);
+                    if (sample.flag) {
+                        registry.counter(sample.name + ".errors").inc();
+                    }
+                    break;
+                case UPLOAD:
+                    recordUpload(sample.bytes, sample.nanos);
+                    break;
+                case LOGIN:
+                    recordLogin(sample.name, sample.flag);
+                    break;
+            }
+        }
+    }
+
+    private void recordUpload(long bytes, long nanos) {
+        registry.meter("upload.bytes").mark(bytes);
+        if (nanos > 0) {
+            registry.histogram("upload.throughputKBps").update(
+                    bytes * TimeUnit.SECONDS.toNanos(1) / 1024 / nanos);
+        }
+    }
+
+    private void recordLogin(String api, boolean success) {
+        registry.counter(MetricRegistry.name("login", api, success ? "success" : "failure")).inc();
+    }
+
+    private synchronized void forward(Sample sample) {
+        if (forwarded != null) {
+            forwarded.samples.add(sample);
+        }
+    }
+
+    /**
+     * Registers <code>gauge</code>, replacing a gauge registered under the same name before.
+     */
+    public synchronized <T> void gauge(String name, Gauge<T> gauge) {
+        registry.remove(name);
+        registry.register(name, gauge);
+    }
+
+    public synchronized void startJmx() {
+        if (jmxReporter == null) {
+            jmxReporter = JmxReporter.forRegistry(registry)
+                    .inDomain(JMX_DOMAIN)
+                    .convertDurationsTo(TimeUnit.MILLISECONDS)
+                    .convertRatesTo(TimeUnit.SECONDS)
+                    .build();
+            jmxReporter.start();
+        }
+    }
+
+    public synchronized void stopJmx() {
+        if (jmxReporter != null) {
+            jmxReporter.stop();
+            jmxReporter = null;
+        }
+    }
+
+    /**
+     * Human readable values of all metrics, by name. Durations are in milliseconds.
+     */
+    public SortedMap<String, String> describe() {
+        SortedMap<String, String> values = new TreeMap<>();
+        for (Map.Entry<String, Timer> entry : registry.getTimers().entrySet()) {
+            Timer timer = entry.getValue();
+            Snapshot snapshot = timer.getSnapshot();
+            values.put(entry.getKey(), String.format("count=%d mean=%.1fms p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                    timer.getCount(),
+                    millis(snapshot.getMean()),
+                    millis(snapshot.getMedian()),
+                    millis(snapshot.get95thPercentile()),
+                    millis(snapshot.get99thPercentile()),
+                    millis(snapshot.getMax())));
+        }
+        for (Map.Entry<String, Histogram> entry : registry.getHistograms().entrySet()) {
+            Snapshot snapshot = entry.getValue().getSnapshot();
+            values.put(entry.getKey(), String.format("count=%d mean=%.1f p50=%.1f p95=%.1f min=%d",
+                    entry.getValue().getCount(),
+                    snapshot.getMean(),
+                    snapshot.getMedian(),
+                    snapshot.get95thPercentile(),
+                    snapshot.getMin()));
+        }
+        for (Map.Entry<String, Meter> entry : registry.getMeters().entrySet()) {
+            Meter meter = entry.getValue();
+            values.put(entry.getKey(), String.format("count=%d rate1m=%.1f/s", meter.getCount(), meter.getOneMinuteRate()));
+        }
+        for (Map.Entry<String, Counter> entry : registry.getCounters().entrySet()) {
+            values.put(entry.getKey(), String.valueOf(entry.getValue().getCount()));
+        }
+        for (Map.Entry<String, Gauge> entry : registry.getGauges().entrySet()) {
+            values.put(entry.getKey(), String.valueOf(entry.getValue().getValue()));
+        }
+        return values;
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * One API call in flight. Finished either directly or, for async
+     * calls, as a callback of the response future.
+     */
+    public class Call implements FutureCallback<Object> {
+        private final String prefix;
+        private final Timer.Context context;
+
+        Call(String prefix, Timer.Context context) {
+            this.prefix = prefix;
+            this.context = context;
+        }
+
+        public void succeeded(Object response) {
+            boolean error = response instanceof ResponseWithError && ((ResponseWithError) response).hasError();
+            finish(error);
+        }
+
+        public void failed() {
+            finish(true);
+        }
+
+        private void finish(boolean error) {
+            long nanos = context.stop();
+            if (error) {
+                registry.counter(prefix + ".errors").inc();
+            }
+            forward(new Sample(Sample.Type.CALL, prefix, nanos, 0, error));
+        }
+
+        @Override
+        public void onSuccess(Object response) {
+            succeeded(response);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            failed();
+        }
+    }
+
+    /**
+     * Measurements made on an agent, in the order they were made.
+     */
+    public static final class Measurements implements Serializable {
+        private final List<Sample> samples = new ArrayList<>();
+
+        public int size() {
+            return samples.size();
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class Sample implements Serializable {
+        enum Type {
+            CALL, UPLOAD, LOGIN
+        }
+
+        final Type type;
+        /** metric prefix of a call, api of a login */
+        final String name;
+        final long nanos;
+        final long bytes;
+        /** error of a call, success of a login */
+        final boolean flag;
+
+        Sample(Type type, String name, long nanos, long bytes, boolean flag) {
+            this.type = type;
+            this.name = name;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.flag = flag;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -1,8 +1,15 @@
 package com.apperian.api;
 
 import com.apperian.api.users.AuthenticateUserResponse;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.EntityUtils;
+import org.jenkinsci.plugins.ease.ProxySettings;
+
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -11,27 +18,130 @@ public class ApperianEndpoint extends JsonHttpEndpoint {
         super(url);
     }
 
-    <T extends ApperianResponse> T doJsonRpc(ApperianRequest request,
-                                             Class<T> responseClass) throws IOException {
+    public ApperianEndpoint(String url, ProxySettings proxySettings) {
+        super(url, proxySettings);
+    }
+
+    <T extends ApperianResponse> T doJsonRpc(final ApperianRequest request,
+                                             final Class<T> responseClass) throws IOException {
+
+        T result = retryPolicy.call(describe(request), request.isIdempotent(), new RetryPolicy.Attempt<T>() {
+            @Override
+            public T run() throws IOException {
+                return execute(request, responseClass);
+            }
+        });
+        if (result != null) {
+            return result;
+        }
+
+        if (!request.isRenewedSession() && renewSession()) {
+            request.setRenewedSession(true);
+            try {
+                return doJsonRpc(request, responseClass);
+            } finally {
+                request.setRenewedSession(false);
+            }
+        }
+        throw new RuntimeException("No access");
+    }
 
+    /**
+     * @return response, or null if access was denied
+     */
+    private <T extends ApperianResponse> T execute(ApperianRequest request,
+                                                   Class<T> responseClass) throws IOException {
         HttpUriRequest httpRequest = request.buildHttpRequest(this, mapper);
 
+        ApiMetrics.Call call = ApiMetrics.getInstance().startCall(ApiMetrics.APPERIAN, describeMetric(request));
         try (CloseableHttpResponse response = httpClient.execute(httpRequest)) {
             int statusCode = response.getStatusLine().getStatusCode();
 
+            T result;
             if (statusCode == 401) {
                 if (responseClass == AuthenticateUserResponse.class) {
-                    return responseClass.cast(AuthenticateUserResponse.buildNoAccessResponse());
+                    result = responseClass.cast(AuthenticateUserResponse.buildNoAccessResponse());
                 } else {
-                    throw new RuntimeException("No access");
+                    result = null;
                 }
+            } else if (statusCode != 200) {
+                throw new ApiCallException(response.getStatusLine(), httpRequest.toString());
+            } else {
+                result = request.buildResponseObject(getResponseReader(), responseClass, response);
             }
-            if (statusCode != 200) {
-                throw new RuntimeException("bad API call, http status: " + response.getStatusLine() + ", request: " + httpRequest);
+            call.succeeded(result);
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
+        }
+    }
+
+    <T extends ApperianResponse> ListenableFuture<T> doJsonRpcAsync(final ApperianRequest request,
+                                                                    final Class<T> responseClass) {
+        ListenableFuture<T> response = retryPolicy.callAsync(describe(request), request.isIdempotent(),
+                                                             new RetryPolicy.AsyncAttempt<T>() {
+            @Override
+            public ListenableFuture<T> run() {
+                return executeAsync(request, responseClass);
             }
+        });
 
-            return request.buildResponseObject(mapper, responseClass, response);
+        return Futures.transform(response, new AsyncFunction<T, T>() {
+            @Override
+            public ListenableFuture<T> apply(T result) throws Exception {
+                if (result != null) {
+                    return Futures.immediateFuture(result);
+                }
+                if (!request.isRenewedSession() && renewSession()) {
+                    request.setRenewedSession(true);
+                    return doJsonRpcAsync(request, responseClass);
+                }
+                throw new RuntimeException("No access");
+            }
+                }, AsyncCalls.blockingStages());
+    }
+
+    private <T extends ApperianResponse> ListenableFuture<T> executeAsync(final ApperianRequest request,
+                                                                          final Class<T> responseClass) {
+        final HttpUriRequest httpRequest;
+        try {
+            httpRequest = request.buildHttpRequest(this, mapper);
+        } catch (RuntimeException ex) {
+            return Futures.immediateFailedFuture(ex);
         }
+
+        ApiMetrics.Call call = ApiMetrics.getInstance().startCall(ApiMetrics.APPERIAN, describeMetric(request));
+        ListenableFuture<T> result = Futures.transform(AsyncCalls.execute(getAsyncHttpClient(), httpRequest),
+                                                       new AsyncFunction<HttpResponse, T>() {
+            @Override
+            public ListenableFuture<T> apply(HttpResponse response) throws Exception {
+                int statusCode = response.getStatusLine().getStatusCode();
+
+                if (statusCode == 200) {
+                    return Futures.immediateFuture(request.buildResponseObject(getResponseReader(), responseClass, response));
+                }
+                EntityUtils.consume(response.getEntity());
+
+                if (statusCode != 401) {
+                    throw new ApiCallException(response.getStatusLine(), httpRequest.toString());
+                }
+                if (responseClass == AuthenticateUserResponse.class) {
+                    return Futures.immediateFuture(responseClass.cast(AuthenticateUserResponse.buildNoAccessResponse()));
+                }
+                return Futures.immediateFuture(null);
+            }
+        });
+        Futures.addCallback(result, call);
+        return result;
+    }
+
+    private String describe(ApperianRequest request) {
+        return request.getType() + " " + url + request.getApiPath();
+    }
+
+    private static String describeMetric(ApperianRequest request) {
+        return request.getType() + " " + request.getMetricPath();
     }
 
     @Override
@@ -42,6 +152,7 @@ public class ApperianEndpoint extends JsonHttpEndpoint {
                     .call(this);
 
             lastLoginError = response.getErrorMessage();
+            ApiMetrics.getInstance().login(ApiMetrics.APPERIAN, !response.hasError());
 
             if (response.hasError()) {
                 return false;
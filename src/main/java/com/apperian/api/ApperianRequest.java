@@ -5,8 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.http.Header;
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -15,11 +14,12 @@ import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
-import org.apache.http.util.EntityUtils;
 
 import com.apperian.api.users.AuthenticateUserRequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ListenableFuture;
 
 public abstract class ApperianRequest {
     public enum Type {
@@ -28,10 +28,21 @@ public abstract class ApperianRequest {
 
     private final Type type;
     private final String apiPath;
+    private final String metricPath;
+    private transient boolean renewedSession;
 
     public ApperianRequest(Type type, String apiPath) {
+        this(type, apiPath, apiPath);
+    }
+
+    /**
+     * @param metricPath <code>apiPath</code> with resource ids replaced by placeholders,
+     *                   calls are measured per this path
+     */
+    public ApperianRequest(Type type, String apiPath, String metricPath) {
         this.type = type;
         this.apiPath = apiPath;
+        this.metricPath = metricPath;
     }
 
     public Type getType() {
@@ -42,8 +53,21 @@ public abstract class ApperianRequest {
         return apiPath;
     }
 
+    @JsonIgnore
+    public String getMetricPath() {
+        return metricPath;
+    }
+
     public abstract ApperianResponse call(ApperianEndpoint endpoint) throws IOException;
 
+    /**
+     * Whether the request may be repeated after a transient failure.
+     */
+    @JsonIgnore
+    public boolean isIdempotent() {
+        return type == Type.GET;
+    }
+
     protected <T extends ApperianResponse> T doJsonRpc(ApperianEndpoint endpoint,
                                                        ApperianRequest request,
                                                        Class<T> responseClass) throws IOException {
@@ -51,6 +75,25 @@ public abstract class ApperianRequest {
     }
 
 
+    /**
+     * Same as {@link #call(ApperianEndpoint)}, completed by the non-blocking client.
+     */
+    public abstract ListenableFuture<? extends ApperianResponse> callAsync(ApperianEndpoint endpoint);
+
+    protected <T extends ApperianResponse> ListenableFuture<T> doJsonRpcAsync(ApperianEndpoint endpoint,
+                                                                              ApperianRequest request,
+                                                                              Class<T> responseClass) {
+        return endpoint.doJsonRpcAsync(request, responseClass);
+    }
+
+    boolean isRenewedSession() {
+        return renewedSession;
+    }
+
+    void setRenewedSession(boolean renewedSession) {
+        this.renewedSession = renewedSession;
+    }
+
     protected Object takeRequestJsonObject() {
         return this;
     }
@@ -97,15 +140,14 @@ public abstract class ApperianRequest {
                                       List<Header> headers,
                                       HttpEntityEnclosingRequestBase requestWithEntity) throws JsonProcessingException {
 
-        String requestAsString = mapper.writeValueAsString(takeRequestJsonObject());
+        Object json = takeRequestJsonObject();
+        String requestAsString = ApiMappers.getInstance().writerFor(json.getClass()).writeValueAsString(json);
         StringEntity entity = new StringEntity(requestAsString, APIConstants.REQUEST_CHARSET);
         headers.add(APIConstants.CONTENT_TYPE_JSON_HEADER);
         requestWithEntity.setEntity(entity);
     }
 
-    public <T extends ApperianResponse> T buildResponseObject(ObjectMapper mapper, Class<T> responseClass, CloseableHttpResponse response) throws IOException {
-        HttpEntity entity = response.getEntity();
-        String responseString = EntityUtils.toString(entity);
-        return mapper.readValue(responseString, responseClass);
+    public <T extends ApperianResponse> T buildResponseObject(JsonResponseReader reader, Class<T> responseClass, HttpResponse response) throws IOException {
+        return reader.read(response.getEntity(), responseClass);
     }
 }
@@ -0,0 +1,59 @@
+package com.apperian.api;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.nio.client.HttpAsyncClient;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Bridges http async client callbacks to {@link ListenableFuture}s.
+ * Callbacks run on I/O dispatch threads, so stages chained on the
+ * returned futures must not block; stages that do, such as logging in
+ * again, run on {@link #blockingStages()}.
+ */
+public final class AsyncCalls {
+    private static final Executor BLOCKING_STAGES = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "EASE API blocking stage");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private AsyncCalls() {
+    }
+
+    public static Executor blockingStages() {
+        return BLOCKING_STAGES;
+    }
+
+    public static ListenableFuture<HttpResponse> execute(HttpAsyncClient client, HttpUriRequest request) {
+        final SettableFuture<HttpResponse> future = SettableFuture.create();
+        client.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                future.set(response);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.setException(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.setException(new CancellationException("http request cancelled"));
+            }
+        });
+        return future;
+    }
+}
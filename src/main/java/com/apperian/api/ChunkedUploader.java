@@ -0,0 +1,224 @@
+package com.apperian.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.EntityUtils;
+
+import com.apperian.api.publishing.UploadResult;
+
+/**
+ * Uploads a file in chunks using <code>Content-Range</code> requests.
+ *
+ * Server answers 308 with <code>Range: bytes=0-N</code> header for every
+ * accepted chunk and 200 with the upload result for the last one. A status
+ * request (empty PUT with <code>Content-Range: bytes *&#47;total</code>)
+ * tells how much was already received. When the status request is not
+ * answered with 308 the server doesn't support ranges.
+ */
+class ChunkedUploader {
+    private static final Logger logger = Logger.getLogger(ChunkedUploader.class.getName());
+
+    static final int RESUME_INCOMPLETE = 308;
+
+    static final int DEFAULT_CHUNK_SIZE = Integer.getInteger(
+            ChunkedUploader.class.getName() + ".chunkSizeKB", 8 * 1024) * 1024;
+    static final int DEFAULT_MAX_RETRIES = Integer.getInteger(
+            ChunkedUploader.class.getName() + ".maxRetries", 5);
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final EASEEndpoint endpoint;
+    private final UploadOffsetStore offsetStore;
+    private final int chunkSize;
+    private final int maxRetries;
+
+    ChunkedUploader(EASEEndpoint endpoint, UploadOffsetStore offsetStore, int chunkSize, int maxRetries) {
+        this.endpoint = endpoint;
+        this.offsetStore = offsetStore;
+        this.chunkSize = chunkSize;
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return upload result or null if server doesn't support ranged uploads
+     */
+    UploadResult upload(String uploadUrl, String transactionID, File file) throws IOException {
+        long total = file.length();
+
+        Status status = queryStatus(uploadUrl, total);
+        if (status == null) {
+            return null;
+        }
+        if (status.result != null) {
+            offsetStore.remove(uploadUrl, transactionID);
+            return status.result;
+        }
+
+        // server's offset wins, resuming past it would send a range it rejects
+        long offset = status.confirmedOffset;
+        long storedOffset = offsetStore.getOffset(uploadUrl, transactionID, file);
+        if (storedOffset > offset) {
+            logger.info("Server has " + offset + " bytes of " + file.getName() +
+                    ", not " + storedOffset + " as stored, resuming from server offset");
+        }
+        if (offset > 0) {
+            logger.info("Resuming upload of " + file.getName() + " at byte " + offset + " of " + total);
+        }
+
+        byte[] buffer = new byte[chunkSize];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            int failures = 0;
+            while (true) {
+                if (offset >= total) {
+                    // nothing left to send, a zero length range would be invalid
+                    Status last = queryStatus(uploadUrl, total);
+                    if (last != null && last.result != null) {
+                        offsetStore.remove(uploadUrl, transactionID);
+                        return last.result;
+                    }
+                    if (last != null && last.confirmedOffset < total) {
+                        offset = last.confirmedOffset;
+                        continue;
+                    }
+                    offsetStore.remove(uploadUrl, transactionID);
+                    throw new IOException("Server has all " + total + " bytes of " + file.getName() +
+                            " but didn't return upload result");
+                }
+
+                int length = (int) Math.min(chunkSize, total - offset);
+                in.seek(offset);
+                in.readFully(buffer, 0, length);
+
+                Status chunkStatus;
+                try {
+                    chunkStatus = sendChunk(uploadUrl, buffer, offset, length, total);
+                } catch (IOException ex) {
+                    if (++failures > maxRetries) {
+                        throw ex;
+                    }
+                    logger.log(Level.INFO, "Chunk at " + offset + " failed, retry " + failures + " of " + maxRetries, ex);
+                    sleepBeforeRetry(failures);
+
+                    // server may have received part of the chunk
+                    Status resync = queryStatus(uploadUrl, total);
+                    if (resync != null && resync.result != null) {
+                        offsetStore.remove(uploadUrl, transactionID);
+                        return resync.result;
+                    }
+                    if (resync != null) {
+                        offset = resync.confirmedOffset;
+                    }
+                    continue;
+                }
+
+                if (chunkStatus.result != null) {
+                    offsetStore.remove(uploadUrl, transactionID);
+                    return chunkStatus.result;
+                }
+
+                if (chunkStatus.confirmedOffset > offset) {
+                    failures = 0;
+                } else if (++failures > maxRetries) {
+                    throw new IOException("Server doesn't accept bytes of " + file.getName() + " at " + offset);
+                }
+                offset = chunkStatus.confirmedOffset;
+                offsetStore.putOffset(uploadUrl, transactionID, file, offset);
+            }
+        }
+    }
+
+    private Status queryStatus(String uploadUrl, long total) throws IOException {
+        HttpPut put = new HttpPut(uploadUrl);
+        put.setHeader("Content-Range", "bytes */" + total);
+
+        try (CloseableHttpResponse response = endpoint.getHttpClient().execute(put)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == RESUME_INCOMPLETE) {
+                EntityUtils.consume(response.getEntity());
+                return Status.incomplete(parseConfirmedOffset(response));
+            }
+            if (statusCode == 200 && total == 0) {
+                return Status.done(readResult(response));
+            }
+            EntityUtils.consume(response.getEntity());
+            return null;
+        }
+    }
+
+    private Status sendChunk(String uploadUrl, byte[] buffer, long offset, int length, long total) throws IOException {
+        HttpPut put = new HttpPut(uploadUrl);
+        put.setHeader("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + total);
+        put.setEntity(new ByteArrayEntity(buffer, 0, length, ContentType.APPLICATION_OCTET_STREAM));
+
+        try (CloseableHttpResponse response = endpoint.getHttpClient().execute(put)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode == RESUME_INCOMPLETE) {
+                EntityUtils.consume(response.getEntity());
+                return Status.incomplete(parseConfirmedOffset(response));
+            }
+            if (statusCode == 200 || statusCode == 201) {
+                return Status.done(readResult(response));
+            }
+            String body = endpoint.getResponseReader().readText(response.getEntity());
+            throw new IOException("chunk upload failed, http status: " + response.getStatusLine() + ", body: " + body);
+        }
+    }
+
+    private UploadResult readResult(CloseableHttpResponse response) throws IOException {
+        return endpoint.getResponseReader().read(response.getEntity(), UploadResult.class);
+    }
+
+    /**
+     * @return bytes server has, 0 when it reports no range
+     */
+    private static long parseConfirmedOffset(CloseableHttpResponse response) {
+        Header range = response.getFirstHeader("Range");
+        if (range == null) {
+            return 0;
+        }
+        Matcher matcher = RANGE_PATTERN.matcher(range.getValue());
+        if (!matcher.find()) {
+            return 0;
+        }
+        return Long.parseLong(matcher.group(2)) + 1;
+    }
+
+    private static void sleepBeforeRetry(int failures) throws IOException {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(Math.min(30, 1L << failures)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("upload interrupted", e);
+        }
+    }
+
+    private static class Status {
+        final long confirmedOffset;
+        final UploadResult result;
+
+        private Status(long confirmedOffset, UploadResult result) {
+            this.confirmedOffset = confirmedOffset;
+            this.result = result;
+        }
+
+        static Status incomplete(long confirmedOffset) {
+            return new Status(confirmedOffset, null);
+        }
+
+        static Status done(UploadResult result) {
+            return new Status(-1, result);
+        }
+    }
+}
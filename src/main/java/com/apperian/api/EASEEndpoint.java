@@ -4,6 +4,7 @@ import com.apperian.api.publishing.AuthenticateUserResponse;
 import com.apperian.api.publishing.UploadResult;
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -11,6 +12,12 @@ import org.apache.http.entity.StringEntity;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.util.EntityUtils;
+import org.jenkinsci.plugins.ease.ProxySettings;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.File;
 import java.io.IOException;
@@ -20,19 +27,131 @@ public class EASEEndpoint extends JsonHttpEndpoint {
         super(url);
     }
 
-    <T extends EASEResponse> T doJsonRpc(EASERequest request,
-                                         Class<T> responseClass) throws IOException {
+    public EASEEndpoint(String url, ProxySettings proxySettings) {
+        super(url, proxySettings);
+    }
+
+    <T extends EASEResponse> T doJsonRpc(final EASERequest request,
+                                         final Class<T> responseClass) throws IOException {
+
+        T result = retryPolicy.call(describe(request), request.isIdempotent(), new RetryPolicy.Attempt<T>() {
+            @Override
+            public T run() throws IOException {
+                return execute(request, responseClass);
+            }
+        });
+
+        if (result.isSessionExpired() && !request.isRenewedSession() && renewSession()) {
+            request.setRenewedSession(true);
+            try {
+                // call() puts renewed token to request params
+                return responseClass.cast(request.call(this));
+            } finally {
+                request.setRenewedSession(false);
+            }
+        }
 
+        return result;
+    }
+
+    private <T extends EASEResponse> T execute(EASERequest request,
+                                               Class<T> responseClass) throws IOException {
         HttpUriRequest httpRequest = buildJsonRpcPost(request);
+        ApiMetrics.Call call = ApiMetrics.getInstance().startCall(ApiMetrics.EASE, request.getMethod());
         try (CloseableHttpResponse response = httpClient.execute(httpRequest)) {
             if (response.getStatusLine().getStatusCode() != 200) {
-                throw new RuntimeException("bad API call, http status: " + response.getStatusLine() + ", request: " + httpRequest);
+                throw new ApiCallException(response.getStatusLine(), httpRequest.toString());
             }
 
-            return buildResponseObject(responseClass, response);
+            T result = buildResponseObject(responseClass, response);
+            call.succeeded(result);
+            return result;
+        } catch (IOException | RuntimeException ex) {
+            call.failed();
+            throw ex;
         }
     }
 
+    <T extends EASEResponse> ListenableFuture<T> doJsonRpcAsync(final EASERequest request,
+                                                                final Class<T> responseClass) {
+        ListenableFuture<T> response = retryPolicy.callAsync(describe(request), request.isIdempotent(),
+                                                             new RetryPolicy.AsyncAttempt<T>() {
+            @Override
+            public ListenableFuture<T> run() {
+                return executeAsync(request, responseClass);
+            }
+        });
+
+        return Futures.transform(response, new AsyncFunction<T, T>() {
+            @Override
+            public ListenableFuture<T> apply(T result) throws Exception {
+                if (result.isSessionExpired() && !request.isRenewedSession() && renewSession()) {
+                    request.setRenewedSession(true);
+                    // callAsync() puts renewed token to request params
+                    return Futures.transform(request.callAsync(EASEEndpoint.this), new Function<EASEResponse, T>() {
+                        @Override
+                        public T apply(EASEResponse retried) {
+                            return responseClass.cast(retried);
+                        }
+                    });
+                }
+                return Futures.immediateFuture(result);
+            }
+                }, AsyncCalls.blockingStages());
+    }
+
+    private <T extends EASEResponse> ListenableFuture<T> executeAsync(EASERequest request,
+                                                                      final Class<T> responseClass) {
+        HttpUriRequest httpRequest;
+        try {
+            httpRequest = buildJsonRpcPost(request);
+        } catch (RuntimeException ex) {
+            return Futures.immediateFailedFuture(ex);
+        }
+        final String requestDescription = httpRequest.toString();
+
+        ApiMetrics.Call call = ApiMetrics.getInstance().startCall(ApiMetrics.EASE, request.getMethod());
+        ListenableFuture<T> result = Futures.transform(AsyncCalls.execute(getAsyncHttpClient(), httpRequest),
+                                                       new AsyncFunction<HttpResponse, T>() {
+            @Override
+            public ListenableFuture<T> apply(HttpResponse response) throws Exception {
+                if (response.getStatusLine().getStatusCode() != 200) {
+                    EntityUtils.consume(response.getEntity());
+                    throw new ApiCallException(response.getStatusLine(), requestDescription);
+                }
+                return Futures.immediateFuture(getResponseReader().read(response.getEntity(), responseClass));
+            }
+        });
+        Futures.addCallback(result, call);
+        return result;
+    }
+
+    private String describe(EASERequest request) {
+        return request.getMethod() + " at " + url;
+    }
+
+    public ListenableFuture<UploadResult> uploadFileAsync(String uploadUrl, final File file) {
+        HttpPost post = new HttpPost(uploadUrl);
+        post.setEntity(new MultipartFileEntity("LUuploadFile", file));
+
+        final long start = System.nanoTime();
+        return Futures.transform(AsyncCalls.execute(getAsyncHttpClient(), post),
+                                 new AsyncFunction<HttpResponse, UploadResult>() {
+            @Override
+            public ListenableFuture<UploadResult> apply(HttpResponse response) throws Exception {
+                UploadResult result;
+                if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                    result = new UploadResult();
+                    result.errorMessage = getResponseReader().readText(response.getEntity());
+                } else {
+                    result = getResponseReader().read(response.getEntity(), UploadResult.class);
+                    ApiMetrics.getInstance().uploaded(file.length(), System.nanoTime() - start);
+                }
+                return Futures.immediateFuture(result);
+            }
+        });
+    }
+
     public UploadResult uploadFile(String uploadUrl, File file) throws IOException {
         HttpPost post = new HttpPost(uploadUrl);
 
@@ -45,29 +164,51 @@ public class EASEEndpoint extends JsonHttpEndpoint {
 
         post.setEntity(multipartEntity);
 
+        long start = System.nanoTime();
         try (CloseableHttpResponse response = httpClient.execute(post)) {
-            String body = EntityUtils.toString(response.getEntity());
             UploadResult result;
             if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
                 result = new UploadResult();
-                result.errorMessage = body;
+                result.errorMessage = getResponseReader().readText(response.getEntity());
             } else {
-                result = mapper.readValue(body, UploadResult.class);
+                result = getResponseReader().read(response.getEntity(), UploadResult.class);
+                ApiMetrics.getInstance().uploaded(file.length(), System.nanoTime() - start);
             }
             return result;
         }
     }
 
+    /**
+     * Uploads file in chunks, continuing from the last offset confirmed by server.
+     * Falls back to {@link #uploadFile(String, File)} when server doesn't support ranges.
+     */
+    public UploadResult uploadFileResumable(String uploadUrl,
+                                            String transactionID,
+                                            File file,
+                                            UploadOffsetStore offsetStore) throws IOException {
+        ChunkedUploader uploader = new ChunkedUploader(this,
+                                                       offsetStore,
+                                                       ChunkedUploader.DEFAULT_CHUNK_SIZE,
+                                                       ChunkedUploader.DEFAULT_MAX_RETRIES);
+        long start = System.nanoTime();
+        UploadResult result = uploader.upload(uploadUrl, transactionID, file);
+        if (result == null) {
+            return uploadFile(uploadUrl, file);
+        }
+        if (!result.hasError()) {
+            ApiMetrics.getInstance().uploaded(file.length(), System.nanoTime() - start);
+        }
+        return result;
+    }
+
     private <T extends EASEResponse> T buildResponseObject(Class<T> responseClass, CloseableHttpResponse response) throws IOException {
-        HttpEntity entity = response.getEntity();
-        String responseString = EntityUtils.toString(entity);
-        return mapper.readValue(responseString, responseClass);
+        return getResponseReader().read(response.getEntity(), responseClass);
     }
 
-    private HttpPost buildJsonRpcPost(EASERequest request) {
+    HttpPost buildJsonRpcPost(EASERequest request) {
         HttpPost post = new HttpPost(url);
         try {
-            String requestStr = mapper.writeValueAsString(request);
+            String requestStr = ApiMappers.getInstance().writerFor(request.getClass()).writeValueAsString(request);
             post.setEntity(new StringEntity(requestStr, APIConstants.REQUEST_CHARSET));
         } catch(Exception ex) {
             throw new RuntimeException("Request marshaling error", ex);
@@ -83,6 +224,7 @@ public class EASEEndpoint extends JsonHttpEndpoint {
                     .call(this);
 
             lastLoginError = response.getErrorMessage();
+            ApiMetrics.getInstance().login(ApiMetrics.EASE, !response.hasError());
 
             if (response.hasError()) {
                 return false;
@@ -2,11 +2,15 @@ package com.apperian.api;
 
 import java.io.IOException;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.util.concurrent.ListenableFuture;
+
 public abstract class EASERequest {
     private final long id;
     private final String jsonrpc;
     private final String apiVersion;
     private final String method;
+    private transient boolean renewedSession;
 
     public EASERequest(String method) {
         this.id = APIConstants.ID_GENERATOR.incrementAndGet();
@@ -33,9 +37,37 @@ public abstract class EASERequest {
 
     public abstract EASEResponse call(EASEEndpoint endpoint) throws IOException;
 
+    /**
+     * Whether the request may be repeated after a transient failure.
+     * JSON-RPC calls change server state unless told otherwise.
+     */
+    @JsonIgnore
+    public boolean isIdempotent() {
+        return false;
+    }
+
     protected <T extends EASEResponse> T doJsonRpc(EASEEndpoint endpoint,
                                                    EASERequest request,
                                                    Class<T> responseClass) throws IOException {
         return endpoint.doJsonRpc(request, responseClass);
     }
+
+    /**
+     * Same as {@link #call(EASEEndpoint)}, completed by the non-blocking client.
+     */
+    public abstract ListenableFuture<? extends EASEResponse> callAsync(EASEEndpoint endpoint);
+
+    protected <T extends EASEResponse> ListenableFuture<T> doJsonRpcAsync(EASEEndpoint endpoint,
+                                                                          EASERequest request,
+                                                                          Class<T> responseClass) {
+        return endpoint.doJsonRpcAsync(request, responseClass);
+    }
+
+    boolean isRenewedSession() {
+        return renewedSession;
+    }
+
+    void setRenewedSession(boolean renewedSession) {
+        this.renewedSession = renewedSession;
+    }
 }
@@ -0,0 +1,293 @@
+package com.apperian.api;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.protocol.HttpContext;
+import org.jenkinsci.plugins.ease.ProxySettings;
+
+/**
+ * Process-wide registry of pooled http clients, one per host and proxy settings.
+ *
+ * Limits can be tuned with system properties
+ * <code>com.apperian.api.HttpClientRegistry.maxTotal</code>,
+ * <code>.maxPerRoute</code>, <code>.idleTimeoutSeconds</code> and
+ * <code>.keepAliveSeconds</code>.
+ */
+public class HttpClientRegistry {
+    private static final Logger logger = Logger.getLogger(HttpClientRegistry.class.getName());
+
+    private static final String PROPERTY_PREFIX = HttpClientRegistry.class.getName() + ".";
+
+    public static final int DEFAULT_MAX_TOTAL = Integer.getInteger(PROPERTY_PREFIX + "maxTotal", 40);
+    public static final int DEFAULT_MAX_PER_ROUTE = Integer.getInteger(PROPERTY_PREFIX + "maxPerRoute", 10);
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = Integer.getInteger(PROPERTY_PREFIX + "idleTimeoutSeconds", 60);
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = Integer.getInteger(PROPERTY_PREFIX + "keepAliveSeconds", 30);
+
+    private static final HttpClientRegistry INSTANCE = new HttpClientRegistry();
+
+    private final ConcurrentMap<Key, PooledClient> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ProxySettings, PooledAsyncClient> asyncClients = new ConcurrentHashMap<>();
+
+    private volatile int maxTotal = DEFAULT_MAX_TOTAL;
+    private volatile int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private volatile int idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+    private volatile int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+
+    private ScheduledExecutorService evictor;
+
+    public static HttpClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public CloseableHttpClient getClient(String url) {
+        return getClient(url, ProxySettings.fromJenkins());
+    }
+
+    public CloseableHttpClient getClient(String url, ProxySettings proxySettings) {
+        Key key = new Key(hostOf(url), proxySettings);
+        PooledClient client = clients.get(key);
+        if (client == null) {
+            PooledClient created = new PooledClient(proxySettings);
+            client = clients.putIfAbsent(key, created);
+            if (client == null) {
+                client = created;
+                startEvictor();
+            } else {
+                created.close();
+            }
+        }
+        return client.httpClient;
+    }
+
+    /**
+     * Non-blocking client, one per proxy settings; a single I/O reactor
+     * serves all hosts.
+     */
+    public CloseableHttpAsyncClient getAsyncClient(ProxySettings proxySettings) {
+        PooledAsyncClient client = asyncClients.get(proxySettings);
+        if (client == null) {
+            synchronized (this) {
+                client = asyncClients.get(proxySettings);
+                if (client == null) {
+                    client = new PooledAsyncClient(proxySettings);
+                    asyncClients.put(proxySettings, client);
+                    startEvictor();
+                }
+            }
+        }
+        return client.httpClient;
+    }
+
+    public synchronized void configure(int maxTotal,
+                                       int maxPerRoute,
+                                       int idleTimeoutSeconds,
+                                       int keepAliveSeconds) {
+        this.maxTotal = maxTotal;
+        this.maxPerRoute = maxPerRoute;
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
+        this.keepAliveSeconds = keepAliveSeconds;
+
+        for (PooledClient client : clients.values()) {
+            client.connectionManager.setMaxTotal(maxTotal);
+            client.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        }
+        for (PooledAsyncClient client : asyncClients.values()) {
+            client.connectionManager.setMaxTotal(maxTotal);
+            client.connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        }
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public int getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public int size() {
+        return clients.size();
+    }
+
+    public void evictIdleConnections() {
+        for (PooledClient client : clients.values()) {
+            client.connectionManager.closeExpiredConnections();
+            client.connectionManager.closeIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS);
+        }
+        for (PooledAsyncClient client : asyncClients.values()) {
+            client.connectionManager.closeExpiredConnections();
+            client.connectionManager.closeIdleConnections(idleTimeoutSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    public synchronized void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+            evictor = null;
+        }
+        for (Map.Entry<Key, PooledClient> entry : clients.entrySet()) {
+            if (clients.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().close();
+            }
+        }
+        for (PooledAsyncClient client : asyncClients.values()) {
+            client.close();
+        }
+        asyncClients.clear();
+    }
+
+    private synchronized void startEvictor() {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "EASE http connection evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(1, idleTimeoutSeconds / 2);
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    evictIdleConnections();
+                } catch (RuntimeException ex) {
+                    logger.log(Level.FINE, "Idle connection eviction failed", ex);
+                }
+            }
+        }, period, period, TimeUnit.SECONDS);
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() != null) {
+                return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+            }
+        } catch (IllegalArgumentException ex) {
+            // fall through and key on the raw url
+        }
+        return url;
+    }
+
+    private class PooledClient {
+        final PoolingHttpClientConnectionManager connectionManager;
+        final CloseableHttpClient httpClient;
+
+        PooledClient(ProxySettings proxySettings) {
+            connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+            httpClient = proxySettings.configure(HttpClients.custom())
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(new CappedKeepAliveStrategy())
+                    .build();
+        }
+
+        void close() {
+            try {
+                httpClient.close();
+            } catch (IOException ex) {
+                logger.log(Level.FINE, "Failed to close http client", ex);
+            }
+        }
+    }
+
+    private class PooledAsyncClient {
+        final PoolingNHttpClientConnectionManager connectionManager;
+        final CloseableHttpAsyncClient httpClient;
+
+        PooledAsyncClient(ProxySettings proxySettings) {
+            try {
+                connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor());
+            } catch (IOReactorException ex) {
+                throw new IllegalStateException("Failed to start http I/O reactor", ex);
+            }
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+            httpClient = proxySettings.configureAsync(HttpAsyncClients.custom())
+                    .setConnectionManager(connectionManager)
+                    .setKeepAliveStrategy(new CappedKeepAliveStrategy())
+                    .build();
+            httpClient.start();
+        }
+
+        void close() {
+            try {
+                httpClient.close();
+            } catch (IOException ex) {
+                logger.log(Level.FINE, "Failed to close async http client", ex);
+            }
+        }
+    }
+
+    private class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            long maxKeepAlive = TimeUnit.SECONDS.toMillis(keepAliveSeconds);
+            if (serverKeepAlive <= 0 || serverKeepAlive > maxKeepAlive) {
+                return maxKeepAlive;
+            }
+            return serverKeepAlive;
+        }
+    }
+
+    private static final class Key {
+        final String host;
+        final ProxySettings proxySettings;
+
+        Key(String host, ProxySettings proxySettings) {
+            this.host = host;
+            this.proxySettings = proxySettings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return host.equals(key.host) && proxySettings.equals(key.proxySettings);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * host.hashCode() + proxySettings.hashCode();
+        }
+    }
+}
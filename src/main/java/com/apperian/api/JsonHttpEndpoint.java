@@ -1,38 +1,69 @@
 package com.apperian.api;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.jenkinsci.plugins.ease.Utils;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.jenkinsci.plugins.ease.ProxySettings;
 
 import java.io.Closeable;
 import java.io.IOException;
 
 public abstract class JsonHttpEndpoint  implements Closeable {
     public final String url;
-    CloseableHttpClient httpClient =
-            Utils.configureProxy(HttpClients.custom())
-                    .build();
+    final CloseableHttpClient httpClient;
+    final ProxySettings proxySettings;
 
-    ObjectMapper mapper = new ObjectMapper();
-    {
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    }
+    final ObjectMapper mapper = ApiMappers.getInstance().getMapper();
 
     protected String sessionToken;
     protected String lastLoginError;
+    protected SessionRenewal sessionRenewal;
+    protected RetryPolicy retryPolicy = RetryPolicy.getDefault();
 
     public JsonHttpEndpoint(String url) {
+        this(url, ProxySettings.fromJenkins());
+    }
+
+    public JsonHttpEndpoint(String url, ProxySettings proxySettings) {
         this.url = url;
+        this.proxySettings = proxySettings;
+        this.httpClient = HttpClientRegistry.getInstance().getClient(url, proxySettings);
     }
 
     public String getSessionToken() {
         return sessionToken;
     }
 
+    public void restoreSession(String sessionToken) {
+        this.sessionToken = sessionToken;
+        this.lastLoginError = null;
+    }
+
+    public void setSessionRenewal(SessionRenewal sessionRenewal) {
+        this.sessionRenewal = sessionRenewal;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Called when server reports expired session. Callers retry a request
+     * only once, marking it as sent with renewed session.
+     */
+    protected boolean renewSession() {
+        if (sessionRenewal == null) {
+            return false;
+        }
+        String expiredToken = sessionToken;
+        sessionToken = null;
+        return sessionRenewal.renewSession(this, expiredToken);
+    }
+
     public String getLastLoginError() {
         return lastLoginError;
     }
@@ -45,14 +76,27 @@ public abstract class JsonHttpEndpoint  implements Closeable {
         return httpClient;
     }
 
+    protected CloseableHttpAsyncClient getAsyncHttpClient() {
+        return HttpClientRegistry.getInstance().getAsyncClient(proxySettings);
+    }
+
+    public ProxySettings getProxySettings() {
+        return proxySettings;
+    }
+
     protected ObjectMapper getMapper() {
         return mapper;
     }
 
+    protected JsonResponseReader getResponseReader() {
+        return JsonResponseReader.getInstance();
+    }
+
     public abstract boolean tryLogin(String email, String password);
 
     public void close() throws IOException {
-        httpClient.close();
+        // http client is shared through HttpClientRegistry,
+        // connections are returned to the pool after each call
     }
 
     public boolean isLoggedIn() {
@@ -67,4 +111,8 @@ public abstract class JsonHttpEndpoint  implements Closeable {
     public String toString() {
         return url.toString();
     }
+
+    public interface SessionRenewal {
+        boolean renewSession(JsonHttpEndpoint endpoint, String expiredToken);
+    }
 }
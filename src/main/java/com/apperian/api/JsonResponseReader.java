@@ -0,0 +1,150 @@
+package com.apperian.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.protocol.HTTP;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Deserializes response bodies straight from the entity stream with
+ * readers from {@link ApiMappers}. Bodies longer than
+ * <code>com.apperian.api.JsonResponseReader.maxResponseSizeMB</code>
+ * (64 by default) are rejected.
+ */
+public class JsonResponseReader {
+    private static final String PROPERTY_PREFIX = JsonResponseReader.class.getName() + ".";
+
+    private static final JsonResponseReader INSTANCE =
+            new JsonResponseReader(Long.getLong(PROPERTY_PREFIX + "maxResponseSizeMB", 64L) * 1024 * 1024);
+
+    private final ApiMappers mappers;
+    private final long maxResponseSize;
+
+    JsonResponseReader(long maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+        this.mappers = ApiMappers.getInstance();
+    }
+
+    public static JsonResponseReader getInstance() {
+        return INSTANCE;
+    }
+
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public <T> T read(HttpEntity entity, Class<T> valueClass) throws IOException {
+        if (entity == null) {
+            throw new IOException("empty response, expected " + valueClass.getSimpleName());
+        }
+        ObjectReader reader = mappers.readerFor(valueClass);
+        Charset charset = explicitCharset(entity);
+        try (InputStream in = limitedContent(entity)) {
+            if (charset == null || charset.name().startsWith("UTF-")) {
+                // jackson detects UTF-8/16/32 from the bytes itself
+                return reader.readValue(in);
+            }
+            return reader.readValue(new InputStreamReader(in, charset));
+        }
+    }
+
+    /**
+     * Body as text, subject to the same size limit; used for error responses.
+     */
+    public String readText(HttpEntity entity) throws IOException {
+        if (entity == null) {
+            return "";
+        }
+        Charset charset = explicitCharset(entity);
+        if (charset == null) {
+            charset = HTTP.DEF_CONTENT_CHARSET;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = limitedContent(entity)) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), charset);
+    }
+
+    private InputStream limitedContent(HttpEntity entity) throws IOException {
+        long length = entity.getContentLength();
+        if (length > maxResponseSize) {
+            throw new ResponseTooLargeException(length, maxResponseSize);
+        }
+        return new LimitedInputStream(entity.getContent(), maxResponseSize);
+    }
+
+    private static Charset explicitCharset(HttpEntity entity) {
+        try {
+            ContentType contentType = ContentType.get(entity);
+            return contentType == null ? null : contentType.getCharset();
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    public static class ResponseTooLargeException extends IOException {
+        public ResponseTooLargeException(long size, long limit) {
+            super("response body of " + size + " bytes exceeds limit of " + limit + " bytes");
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(long n) throws IOException {
+            count += n;
+            if (count > limit) {
+                throw new ResponseTooLargeException(count, limit);
+            }
+        }
+    }
+}
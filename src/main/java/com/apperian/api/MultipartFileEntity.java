@@ -0,0 +1,211 @@
+package com.apperian.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.UUID;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.FileContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.HttpAsyncContentProducer;
+
+/**
+ * multipart/form-data body with a single file part, streamed from disk
+ * by the async client. httpmime multipart entities can't be used there,
+ * as they don't provide content as a stream.
+ */
+public class MultipartFileEntity extends AbstractHttpEntity implements HttpAsyncContentProducer {
+    private static final String CRLF = "\r\n";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File file;
+    private final byte[] head;
+    private final byte[] tail;
+
+    private FileChannel channel;
+    private ByteBuffer headBuffer;
+    private ByteBuffer tailBuffer;
+    private ByteBuffer fileBuffer;
+    private long filePosition;
+
+    public MultipartFileEntity(String fieldName, File file) {
+        this.file = file;
+        String boundary = "----" + UUID.randomUUID().toString().replace("-", "");
+        head = ascii("--" + boundary + CRLF +
+                "Content-Disposition: " + contentDisposition(fieldName, file.getName()) + CRLF +
+                "Content-Type: application/octet-stream" + CRLF +
+                "Content-Transfer-Encoding: binary" + CRLF +
+                CRLF);
+        tail = ascii(CRLF + "--" + boundary + "--" + CRLF);
+        setContentType("multipart/form-data; boundary=" + boundary);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return head.length + file.length() + tail.length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new SequenceInputStream(new ByteArrayInputStream(head),
+                new SequenceInputStream(new FileInputStream(file), new ByteArrayInputStream(tail)));
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(head);
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        out.write(tail);
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public void produceContent(ContentEncoder encoder, IOControl ioctrl) throws IOException {
+        if (headBuffer == null) {
+            headBuffer = ByteBuffer.wrap(head);
+            tailBuffer = ByteBuffer.wrap(tail);
+            channel = new RandomAccessFile(file, "r").getChannel();
+            filePosition = 0;
+            if (fileBuffer != null) {
+                fileBuffer.limit(0);
+            }
+        }
+
+        if (headBuffer.hasRemaining()) {
+            encoder.write(headBuffer);
+            if (headBuffer.hasRemaining()) {
+                return;
+            }
+        }
+
+        long fileLength = channel.size();
+        if (encoder instanceof FileContentEncoder) {
+            if (filePosition < fileLength) {
+                long written = ((FileContentEncoder) encoder).transfer(channel, filePosition, fileLength - filePosition);
+                if (written > 0) {
+                    filePosition += written;
+                }
+                if (filePosition < fileLength) {
+                    return;
+                }
+            }
+        } else {
+            // filePosition counts bytes read into fileBuffer, bytes the
+            // encoder didn't accept stay there for the next call
+            if (fileBuffer == null) {
+                fileBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+                fileBuffer.limit(0);
+            }
+            if (!fileBuffer.hasRemaining() && filePosition < fileLength) {
+                fileBuffer.clear();
+                int read = channel.read(fileBuffer, filePosition);
+                fileBuffer.flip();
+                if (read < 0) {
+                    throw new IOException(file + " got shorter while uploading");
+                }
+                filePosition += read;
+            }
+            if (fileBuffer.hasRemaining()) {
+                encoder.write(fileBuffer);
+            }
+            if (fileBuffer.hasRemaining() || filePosition < fileLength) {
+                return;
+            }
+        }
+
+        encoder.write(tailBuffer);
+        if (!tailBuffer.hasRemaining()) {
+            encoder.complete();
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        headBuffer = null;
+        tailBuffer = null;
+    }
+
+    /**
+     * Quoted filename keeps only printable ASCII, the full name goes to
+     * RFC 5987 <code>filename*</code> when it has other characters.
+     */
+    static String contentDisposition(String fieldName, String filename) {
+        StringBuilder quoted = new StringBuilder();
+        boolean ascii = true;
+        for (int i = 0; i < filename.length(); i++) {
+            char c = filename.charAt(i);
+            if (c < 0x20 || c >= 0x7f) {
+                ascii = false;
+                quoted.append('_');
+            } else {
+                if (c == '"' || c == '\\') {
+                    quoted.append('\\');
+                }
+                quoted.append(c);
+            }
+        }
+        String header = "form-data; name=\"" + fieldName + "\"; filename=\"" + quoted + "\"";
+        if (!ascii) {
+            header += "; filename*=UTF-8''" + percentEncode(filename);
+        }
+        return header;
+    }
+
+    private static String percentEncode(String s) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : bytes(s, "UTF-8")) {
+            int c = b & 0xff;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || "!#$&+-.^_`|~".indexOf(c) >= 0) {
+                encoded.append((char) c);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static byte[] ascii(String s) {
+        return bytes(s, "US-ASCII");
+    }
+
+    private static byte[] bytes(String s, String charset) {
+        try {
+            return s.getBytes(charset);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -11,6 +11,10 @@ public class ResponseWithError {
         return getErrorMessage() != null;
     }
 
+    public boolean isSessionExpired() {
+        return error != null && error.getCode() == APIConstants.ERROR_CODE_SESSION_EXPIRED;
+    }
+
     public String getErrorMessage() {
         if (error == null) {
             return null;
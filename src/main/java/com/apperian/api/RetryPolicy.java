@@ -0,0 +1,181 @@
+package com.apperian.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Retries of idempotent API calls. Connect failures, timeouts, dropped
+ * connections and 408, 429 and 5xx responses are retried with exponential
+ * backoff and jitter; any other failure, or any failure of a call which is
+ * not idempotent, is thrown at once. Expired sessions are not retried here,
+ * endpoints renew the session and repeat the call themselves.
+ *
+ * Defaults are system properties prefixed with the class name:
+ * <code>maxAttempts</code> (4), <code>initialDelayMillis</code> (500)
+ * and <code>maxDelayMillis</code> (10000).
+ */
+public class RetryPolicy {
+    private static final Logger logger = Logger.getLogger(RetryPolicy.class.getName());
+
+    private static final String PROPERTY_PREFIX = RetryPolicy.class.getName() + ".";
+
+    private static final RetryPolicy DEFAULT = new RetryPolicy(
+            Integer.getInteger(PROPERTY_PREFIX + "maxAttempts", 4),
+            Long.getLong(PROPERTY_PREFIX + "initialDelayMillis", 500),
+            Long.getLong(PROPERTY_PREFIX + "maxDelayMillis", 10000));
+
+    private static final ScheduledExecutorService RETRY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "EASE API retry");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final int maxAttempts;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random = new Random();
+
+    public RetryPolicy(int maxAttempts, long initialDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelayMillis = Math.max(0, initialDelayMillis);
+        this.maxDelayMillis = Math.max(this.initialDelayMillis, maxDelayMillis);
+    }
+
+    public static RetryPolicy getDefault() {
+        return DEFAULT;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public boolean isRetryable(Throwable ex) {
+        if (ex instanceof ApiCallException) {
+            int status = ((ApiCallException) ex).getStatusCode();
+            return status >= 500 || status == 429 || status == 408;
+        }
+        return ex instanceof ConnectTimeoutException ||
+                ex instanceof SocketTimeoutException ||
+                ex instanceof ConnectException ||
+                ex instanceof NoHttpResponseException;
+    }
+
+    /**
+     * Delay before attempt <code>failures + 1</code>: half of the backoff
+     * is fixed, the other half random, so retrying clients spread out.
+     */
+    long delayMillis(int failures) {
+        long backoff = initialDelayMillis << Math.min(failures - 1, 20);
+        backoff = Math.min(backoff, maxDelayMillis);
+        long half = backoff / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (backoff - half));
+        }
+    }
+
+    public <T> T call(String description, boolean idempotent, Attempt<T> attempt) throws IOException {
+        int failures = 0;
+        while (true) {
+            try {
+                return attempt.run();
+            } catch (IOException | RuntimeException ex) {
+                failures++;
+                if (!shouldRetry(idempotent, failures, ex)) {
+                    throw ex;
+                }
+                long delay = delayMillis(failures);
+                logRetry(description, failures, delay, ex);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting to retry " + description);
+                }
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #call(String, boolean, Attempt)}, backoff delays are
+     * scheduled instead of slept.
+     */
+    public <T> ListenableFuture<T> callAsync(String description, boolean idempotent, AsyncAttempt<T> attempt) {
+        SettableFuture<T> result = SettableFuture.create();
+        runAsync(description, idempotent, attempt, 0, result);
+        return result;
+    }
+
+    private <T> void runAsync(final String description,
+                              final boolean idempotent,
+                              final AsyncAttempt<T> attempt,
+                              final int failures,
+                              final SettableFuture<T> result) {
+        ListenableFuture<T> future;
+        try {
+            future = attempt.run();
+        } catch (RuntimeException ex) {
+            future = Futures.immediateFailedFuture(ex);
+        }
+
+        Futures.addCallback(future, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                int failed = failures + 1;
+                if (result.isCancelled() || !shouldRetry(idempotent, failed, ex)) {
+                    result.setException(ex);
+                    return;
+                }
+                long delay = delayMillis(failed);
+                logRetry(description, failed, delay, ex);
+                RETRY_SCHEDULER.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        runAsync(description, idempotent, attempt, failed, result);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    private boolean shouldRetry(boolean idempotent, int failures, Throwable ex) {
+        return idempotent && failures < maxAttempts && isRetryable(ex);
+    }
+
+    private void logRetry(String description, int failures, long delay, Throwable ex) {
+        logger.log(Level.INFO, "Attempt {0} of {1} failed: {2}, retrying in {3} ms. {4}",
+                   new Object[]{failures, maxAttempts, description, delay, ex});
+    }
+
+    public interface Attempt<T> {
+        T run() throws IOException;
+    }
+
+    public interface AsyncAttempt<T> {
+        ListenableFuture<T> run();
+    }
+}
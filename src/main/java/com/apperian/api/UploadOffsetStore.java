@@ -0,0 +1,98 @@
+package com.apperian.api;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.plugins.ease.Utils;
+
+/**
+ * Remembers how many bytes of a file were confirmed by the server for
+ * an upload url and transaction, so an interrupted upload can continue.
+ */
+public class UploadOffsetStore {
+    private static final Logger logger = Logger.getLogger(UploadOffsetStore.class.getName());
+
+    private static final String OFFSET = "offset";
+    private static final String LENGTH = "length";
+    private static final String LAST_MODIFIED = "lastModified";
+
+    private static final UploadOffsetStore DEFAULT = new UploadOffsetStore(
+            new File(System.getProperty("java.io.tmpdir"), "ease-upload-offsets"));
+
+    private final File directory;
+
+    public UploadOffsetStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Store shared by all uploads of this JVM, so concurrent uploads
+     * synchronize on the same instance.
+     */
+    public static UploadOffsetStore defaultStore() {
+        return DEFAULT;
+    }
+
+    public synchronized long getOffset(String uploadUrl, String transactionID, File file) {
+        File stateFile = stateFile(uploadUrl, transactionID);
+        if (!stateFile.isFile()) {
+            return 0;
+        }
+
+        Properties state = new Properties();
+        try (InputStream in = new FileInputStream(stateFile)) {
+            state.load(in);
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Can't read upload state " + stateFile, ex);
+            return 0;
+        }
+
+        if (!String.valueOf(file.length()).equals(state.getProperty(LENGTH))
+                || !String.valueOf(file.lastModified()).equals(state.getProperty(LAST_MODIFIED))) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(state.getProperty(OFFSET, "0"));
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    public synchronized void putOffset(String uploadUrl, String transactionID, File file, long offset) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            logger.fine("Can't create upload state directory " + directory);
+            return;
+        }
+
+        Properties state = new Properties();
+        state.setProperty(OFFSET, String.valueOf(offset));
+        state.setProperty(LENGTH, String.valueOf(file.length()));
+        state.setProperty(LAST_MODIFIED, String.valueOf(file.lastModified()));
+
+        File stateFile = stateFile(uploadUrl, transactionID);
+        try (OutputStream out = new FileOutputStream(stateFile)) {
+            state.store(out, uploadUrl + " " + transactionID);
+        } catch (IOException ex) {
+            logger.log(Level.FINE, "Can't write upload state " + stateFile, ex);
+        }
+    }
+
+    public synchronized void remove(String uploadUrl, String transactionID) {
+        File stateFile = stateFile(uploadUrl, transactionID);
+        if (stateFile.exists() && !stateFile.delete()) {
+            logger.fine("Can't delete upload state " + stateFile);
+        }
+    }
+
+    private File stateFile(String uploadUrl, String transactionID) {
+        return new File(directory, Utils.sha256Hex(uploadUrl + "\n" + transactionID) + ".properties");
+    }
+}
@@ -5,6 +5,7 @@ import java.io.IOException;
 import com.apperian.api.ApperianEndpoint;
 import com.apperian.api.ApperianRequest;
 import com.apperian.api.ApperianResourceID;
+import com.google.common.util.concurrent.ListenableFuture;
 
 public class ApplicationListRequest extends ApperianRequest {
     public ApplicationListRequest() {
@@ -14,11 +15,16 @@ public class ApplicationListRequest extends ApperianRequest {
     Boolean enabled;
 
     public ApplicationListRequest(ApperianResourceID applicationId) {
-        super(Type.PUT, "/application/" + applicationId);
+        super(Type.PUT, "/application/" + applicationId, "/application/{id}");
     }
 
     @Override
     public ApplicationListResponse call(ApperianEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, ApplicationListResponse.class);
     }
+
+    @Override
+    public ListenableFuture<ApplicationListResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, ApplicationListResponse.class);
+    }
 }
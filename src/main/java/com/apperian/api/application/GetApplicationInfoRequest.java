@@ -5,14 +5,20 @@ import java.io.IOException;
 import com.apperian.api.ApperianEndpoint;
 import com.apperian.api.ApperianRequest;
 import com.apperian.api.ApperianResourceID;
+import com.google.common.util.concurrent.ListenableFuture;
 
 public class GetApplicationInfoRequest extends ApperianRequest {
     public GetApplicationInfoRequest(ApperianResourceID applicationId) {
-        super(Type.GET, "/applications/" + applicationId);
+        super(Type.GET, "/applications/" + applicationId, "/applications/{id}");
     }
 
     @Override
     public GetApplicationInfoResponse call(ApperianEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, GetApplicationInfoResponse.class);
     }
+
+    @Override
+    public ListenableFuture<GetApplicationInfoResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, GetApplicationInfoResponse.class);
+    }
 }
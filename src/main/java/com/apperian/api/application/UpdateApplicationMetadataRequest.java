@@ -3,6 +3,7 @@ package com.apperian.api.application;
 import com.apperian.api.ApperianEndpoint;
 import com.apperian.api.ApperianRequest;
 import com.apperian.api.ApperianResourceID;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -10,7 +11,7 @@ public class UpdateApplicationMetadataRequest extends ApperianRequest {
     Boolean enabled = null;
 
     public UpdateApplicationMetadataRequest(ApperianResourceID applicationId) {
-        super(Type.PUT, "/applications/" + applicationId);
+        super(Type.PUT, "/applications/" + applicationId, "/applications/{id}");
     }
 
     public Boolean getEnabled() {
@@ -27,4 +28,9 @@ public class UpdateApplicationMetadataRequest extends ApperianRequest {
     public UpdateApplicationMetadataResponse call(ApperianEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, UpdateApplicationMetadataResponse.class);
     }
+
+    @Override
+    public ListenableFuture<UpdateApplicationMetadataResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, UpdateApplicationMetadataResponse.class);
+    }
 }
@@ -14,10 +14,11 @@ public class AndroidMetadataExtractor extends MetadataExtractor {
     }
 
     @Override
-    public boolean tryExtractTo(Metadata metadata, File file, PrintStream logger) {
+    public boolean tryExtractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger) {
         this.jenkinsLogger = logger;
         try {
-            try(ApkParser apkParser = new ApkParser(file)) {
+            // apk parser reads the archive on its own
+            try(ApkParser apkParser = new ApkParser(archive.getFile())) {
                 extractApkMeta(metadata, apkParser);
             }
             return true;
@@ -32,6 +33,12 @@ public class AndroidMetadataExtractor extends MetadataExtractor {
 
         setAndLog(metadata, KnownFields.NAME, apkMeta.getLabel());
         setAndLog(metadata, KnownFields.VERSION, apkMeta.getVersionName());
+        setAndLog(metadata, KnownFields.BUNDLE_ID, apkMeta.getPackageName());
+    }
+
+    @Override
+    protected boolean recognizes(ArchiveIndex archive) throws IOException {
+        return archive.getEntry("AndroidManifest.xml") != null;
     }
 
     @Override
@@ -0,0 +1,61 @@
+package com.apperian.api.metadata;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Picks the extractor by archive content rather than by file name:
+ * checks zip signature first and then asks every extractor whether it
+ * recognizes well-known entries of its platform.
+ */
+public class ArchiveFormatDetector {
+    private static final byte[] LOCAL_FILE_HEADER = {'P', 'K', 3, 4};
+    private static final byte[] EMPTY_ARCHIVE = {'P', 'K', 5, 6};
+
+    private ArchiveFormatDetector() {
+    }
+
+    public static boolean hasZipSignature(File file) throws IOException {
+        byte[] magic = new byte[4];
+        try (InputStream in = new FileInputStream(file)) {
+            int read = 0;
+            while (read < magic.length) {
+                int n = in.read(magic, read, magic.length - read);
+                if (n == -1) {
+                    return false;
+                }
+                read += n;
+            }
+        }
+        return startsWith(magic, LOCAL_FILE_HEADER) || startsWith(magic, EMPTY_ARCHIVE);
+    }
+
+    /**
+     * @return first of <code>candidates</code> recognizing the archive,
+     *         or null if none does
+     */
+    public static MetadataExtractor detect(ArchiveIndex archive,
+                                           List<MetadataExtractor> candidates) throws IOException {
+        if (!archive.isZip()) {
+            return null;
+        }
+        for (MetadataExtractor candidate : candidates) {
+            if (candidate.recognizes(archive)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package com.apperian.api.metadata;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Application archive opened once and shared by all extractors.
+ * Central directory is read lazily, on first lookup, into name,
+ * base name and extension indexes.
+ */
+public class ArchiveIndex implements Closeable {
+    private final File file;
+
+    private ZipFile zip;
+    private boolean opened;
+    private List<ZipEntry> entries;
+    private Map<String, ZipEntry> byName;
+    private Map<String, List<ZipEntry>> byBaseName;
+    private Map<String, List<ZipEntry>> byExtension;
+
+    public ArchiveIndex(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isZip() throws IOException {
+        return open() != null;
+    }
+
+    public List<ZipEntry> getEntries() throws IOException {
+        open();
+        return Collections.unmodifiableList(entries);
+    }
+
+    public ZipEntry getEntry(String name) throws IOException {
+        open();
+        return byName.get(name);
+    }
+
+    /**
+     * First entry (in archive order) whose last path segment is exactly
+     * <code>baseName</code>, falling back to any entry ending with it.
+     */
+    public ZipEntry findByBaseName(String baseName) throws IOException {
+        open();
+        List<ZipEntry> candidates = byBaseName.get(baseName);
+        if (candidates != null) {
+            return candidates.get(0);
+        }
+        for (ZipEntry entry : entries) {
+            if (entry.getName().endsWith(baseName)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    public List<ZipEntry> findByBaseNameAll(String baseName) throws IOException {
+        open();
+        List<ZipEntry> candidates = byBaseName.get(baseName);
+        return candidates == null ? Collections.<ZipEntry>emptyList() : candidates;
+    }
+
+    /**
+     * @param extension extension with leading dot, e.g. ".alx"
+     */
+    public List<ZipEntry> findByExtension(String extension) throws IOException {
+        open();
+        List<ZipEntry> candidates = byExtension.get(extension.toLowerCase());
+        return candidates == null ? Collections.<ZipEntry>emptyList() : candidates;
+    }
+
+    public InputStream getInputStream(ZipEntry entry) throws IOException {
+        ZipFile zipFile = open();
+        if (zipFile == null) {
+            throw new ZipException("not a zip archive: " + file);
+        }
+        return zipFile.getInputStream(entry);
+    }
+
+    private synchronized ZipFile open() throws IOException {
+        if (opened) {
+            return zip;
+        }
+        opened = true;
+
+        entries = new ArrayList<>();
+        byName = new HashMap<>();
+        byBaseName = new HashMap<>();
+        byExtension = new HashMap<>();
+
+        try {
+            zip = new ZipFile(file);
+        } catch (ZipException ex) {
+            return null;
+        }
+
+        Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+        while (zipEntries.hasMoreElements()) {
+            ZipEntry entry = zipEntries.nextElement();
+            String name = entry.getName();
+
+            entries.add(entry);
+            byName.put(name, entry);
+
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            String baseName = name.substring(name.lastIndexOf('/') + 1);
+            add(byBaseName, baseName, entry);
+
+            int dot = baseName.lastIndexOf('.');
+            if (dot != -1) {
+                add(byExtension, baseName.substring(dot).toLowerCase(), entry);
+            }
+        }
+        return zip;
+    }
+
+    private static void add(Map<String, List<ZipEntry>> index, String key, ZipEntry entry) {
+        List<ZipEntry> list = index.get(key);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            index.put(key, list);
+        }
+        list.add(entry);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (zip != null) {
+            zip.close();
+            zip = null;
+        }
+        opened = false;
+    }
+}
@@ -1,12 +1,12 @@
 package com.apperian.api.metadata;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import javax.xml.xpath.XPathExpressionException;
 
 import com.apperian.api.metadata.Metadata.KnownFields;
 
@@ -14,23 +14,22 @@ public class BlackberryMetadataExtractor extends MetadataExtractor {
     public BlackberryMetadataExtractor() {
     }
 
+    private static final String NAME = "loader/application/name";
+    private static final String VERSION = "loader/application/version";
+    private static final String DESCRIPTION = "loader/application/description";
+    private static final String IDENTITY = "loader/application/@id";
+
+    private static final XMLFieldReader DESCRIPTOR_FIELDS = new XMLFieldReader(NAME, VERSION, DESCRIPTION, IDENTITY);
+
     @Override
-    public boolean tryExtractTo(Metadata metadata, File file, PrintStream logger) {
+    public boolean tryExtractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger) {
         this.jenkinsLogger = logger;
-        try (ZipFile zip = new ZipFile(file)) {
-            Enumeration<? extends ZipEntry> entries = zip.entries();
-            while (entries.hasMoreElements()) {
-                ZipEntry entry = entries.nextElement();
-                String name = entry.getName();
-                if (!name.endsWith(".alx")) {
-                    continue;
-                }
-
-                try (InputStream in = zip.getInputStream(entry)) {
-                    XMLDoc doc = new XMLDoc(in);
-                    extractProperties(metadata, doc);
+        try {
+            List<ZipEntry> descriptors = archive.findByExtension(".alx");
+            if (!descriptors.isEmpty()) {
+                try (InputStream in = archive.getInputStream(descriptors.get(0))) {
+                    extractProperties(metadata, DESCRIPTOR_FIELDS.read(in));
                 }
-                break;
             }
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -39,15 +38,22 @@ public class BlackberryMetadataExtractor extends MetadataExtractor {
         return true;
     }
 
-    private void extractProperties(Metadata metadata, XMLDoc doc) throws XPathExpressionException {
-        String name = doc.extractValue("loader/application/name");
-        String versionName = doc.extractValue("loader/application/version");
-        String description = doc.extractValue("loader/application/description");
+    private void extractProperties(Metadata metadata, Map<String, String> fields) {
+        String name = fields.get(NAME);
+        String versionName = fields.get(VERSION);
+        String description = fields.get(DESCRIPTION);
+        String identity = fields.get(IDENTITY);
 
         setAndLog(metadata, KnownFields.NAME, name);
         setAndLog(metadata, KnownFields.VERSION, versionName);
         setAndLog(metadata, KnownFields.SHORT_DESCRIPTION, description);
         setAndLog(metadata, KnownFields.LONG_DESCRIPTION, description);
+        setAndLog(metadata, KnownFields.BUNDLE_ID, identity);
+    }
+
+    @Override
+    protected boolean recognizes(ArchiveIndex archive) throws IOException {
+        return !archive.findByExtension(".alx").isEmpty();
     }
 
     @Override
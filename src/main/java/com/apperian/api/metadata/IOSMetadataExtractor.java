@@ -1,11 +1,10 @@
 package com.apperian.api.metadata;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
-import java.util.Enumeration;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 import com.apperian.api.metadata.Metadata.KnownFields;
 import com.dd.plist.NSDictionary;
@@ -17,15 +16,15 @@ public class IOSMetadataExtractor extends MetadataExtractor {
     }
 
     @Override
-    public boolean tryExtractTo(Metadata metadata, File file, PrintStream logger) {
+    public boolean tryExtractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger) {
         this.jenkinsLogger = logger;
         boolean extracted = false;
-        try (ZipFile zip = new ZipFile(file)) {
+        try {
         // try iTunesMetadata.plist first
-            extracted = extractiTunesMetadata(zip, metadata);
+            extracted = extractiTunesMetadata(archive, metadata);
             if (!extracted) {
             // try Info.plist
-                extracted = extractInfoMetadata(zip, metadata);
+                extracted = extractInfoMetadata(archive, metadata);
             }
             if (!extracted) {
                 this.jenkinsLogger.println("Unable to find metadata inside the app");
@@ -36,19 +35,9 @@ public class IOSMetadataExtractor extends MetadataExtractor {
         }
         return extracted;
     }
-    
-    private ZipEntry findFileinZip(String name, ZipFile file)
-    {
-        for (Enumeration<? extends ZipEntry> e = file.entries();  e.hasMoreElements();) {
-            ZipEntry zipEntry = e.nextElement();
-            if (zipEntry.getName().endsWith(name))
-                return zipEntry;
-        }
-        return null;
-    }
 
-    private boolean extractInfoMetadata(ZipFile zip, Metadata metadata) {
-        ZipEntry entry = findFileinZip("Info.plist", zip);
+    private boolean extractInfoMetadata(ArchiveIndex zip, Metadata metadata) throws IOException {
+        ZipEntry entry = zip.findByBaseName("Info.plist");
         if (entry == null) {
             return false;
         }
@@ -58,9 +47,11 @@ public class IOSMetadataExtractor extends MetadataExtractor {
 
             String bundleDisplayName = getCfg(dict, "CFBundleDisplayName","CFBundleName");            
             String bundleVersion = getCfg(dict, "CFBundleVersion");
+            String bundleId = getCfg(dict, "CFBundleIdentifier");
 
             setAndLog(metadata, KnownFields.NAME, bundleDisplayName);            
             setAndLog(metadata, KnownFields.VERSION, bundleVersion);
+            setAndLog(metadata, KnownFields.BUNDLE_ID, bundleId);
         } catch (Exception ex) {
             this.jenkinsLogger.println(ex.toString());
             ex.printStackTrace();
@@ -70,8 +61,8 @@ public class IOSMetadataExtractor extends MetadataExtractor {
    }
 
     
-    private boolean extractiTunesMetadata(ZipFile zip, Metadata metadata) {
-        ZipEntry entry = findFileinZip("iTunesMetadata.plist", zip);
+    private boolean extractiTunesMetadata(ArchiveIndex zip, Metadata metadata) throws IOException {
+        ZipEntry entry = zip.findByBaseName("iTunesMetadata.plist");
         if (entry == null) {
             return false;
         }         
@@ -81,9 +72,11 @@ public class IOSMetadataExtractor extends MetadataExtractor {
             String bundleDisplayName = getCfg(dict, "itemName", "bundleDisplayName", "playlistName");
             String artistName = getCfg(dict, "artistName");
             String bundleVersion = getCfg(dict, "bundleVersion");
+            String bundleId = getCfg(dict, "softwareVersionBundleId");
             setAndLog(metadata, KnownFields.NAME, bundleDisplayName);
             setAndLog(metadata, KnownFields.AUTHOR, artistName);
             setAndLog(metadata, KnownFields.VERSION, bundleVersion);
+            setAndLog(metadata, KnownFields.BUNDLE_ID, bundleId);
         } catch (Exception ex) {
             ex.printStackTrace();
             return false;
@@ -102,6 +95,18 @@ public class IOSMetadataExtractor extends MetadataExtractor {
         return null;
     }
 
+    @Override
+    protected boolean recognizes(ArchiveIndex archive) throws IOException {
+        // Payload/<name>.app/Info.plist
+        for (ZipEntry entry : archive.findByBaseNameAll("Info.plist")) {
+            String[] path = entry.getName().split("/");
+            if (path.length == 3 && path[0].equals("Payload") && path[1].endsWith(".app")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     protected boolean checkFileAcceptable(File file) {
         String name = file.getName();
@@ -18,13 +18,16 @@ public class Metadata {
         String VERSION_NOTES = "versionNotes";
         String SHORT_DESCRIPTION = "shortdescription";
         String LONG_DESCRIPTION = "longdescription";
+        /** package identifier, never sent to server */
+        String BUNDLE_ID = "bundleId";
 
         List<String> ALL_KEYS = Arrays.asList(NAME,
                                               AUTHOR,
                                               VERSION,
                                               VERSION_NOTES,
                                               SHORT_DESCRIPTION,
-                                              LONG_DESCRIPTION);
+                                              LONG_DESCRIPTION,
+                                              BUNDLE_ID);
     }
 
     private final Map<String, String> values;
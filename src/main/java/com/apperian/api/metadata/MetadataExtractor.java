@@ -1,10 +1,14 @@
 package com.apperian.api.metadata;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.logging.Logger;
 
 public abstract class MetadataExtractor implements Comparable<MetadataExtractor> {
@@ -20,36 +24,62 @@ public abstract class MetadataExtractor implements Comparable<MetadataExtractor>
     public static List<MetadataExtractor> allExtractors(File file) {
         List<MetadataExtractor> extractors = new ArrayList<>();
 
-        String metadataPackage = MetadataExtractor.class.getPackage().getName();
-        metadataPackage += ".";
-
-        addExtractorByClass(extractors, file,
-                metadataPackage + "AndroidMetadataExtractor");
-        addExtractorByClass(extractors, file,
-                metadataPackage + "IOSMetadataExtractor");
-        addExtractorByClass(extractors, file,
-                metadataPackage + "WinPhoneAppxMetadataExtractor");
-        addExtractorByClass(extractors, file,
-                metadataPackage + "BlackberryMetadataExtractor");
+        for (MetadataExtractor extractor : registeredExtractors()) {
+            if (extractor.checkFileAcceptable(file)) {
+                extractors.add(extractor);
+            }
+        }
 
         Collections.sort(extractors);
 
         return extractors;
     }
 
-    private static void addExtractorByClass(List<MetadataExtractor> extractors,
-                                            File file,
-                                            String clsName) {
-        try {
-            Class<?> cls = Class.forName(clsName);
-            MetadataExtractor extractor = (MetadataExtractor)cls.newInstance();
-            if (!extractor.checkFileAcceptable(file)) {
-                return;
+    /**
+     * Extractors to try for the archive: the single one recognizing its
+     * content if there is one, otherwise all of them ordered by file extension.
+     */
+    public static List<MetadataExtractor> extractorsFor(ArchiveIndex archive) throws IOException {
+        File file = archive.getFile();
+        if (!ArchiveFormatDetector.hasZipSignature(file)) {
+            return Collections.emptyList();
+        }
+
+        List<MetadataExtractor> extractors = allExtractors(file);
+        MetadataExtractor detected = ArchiveFormatDetector.detect(archive, extractors);
+        if (detected != null) {
+            return Collections.singletonList(detected);
+        }
+        return extractors;
+    }
+
+    /**
+     * Extractors listed in META-INF/services/com.apperian.api.metadata.MetadataExtractor,
+     * new instances on every call.
+     */
+    static List<MetadataExtractor> registeredExtractors() {
+        List<MetadataExtractor> extractors = new ArrayList<>();
+        ServiceLoader<MetadataExtractor> loader = ServiceLoader.load(MetadataExtractor.class,
+                                                                     MetadataExtractor.class.getClassLoader());
+        Iterator<MetadataExtractor> it = loader.iterator();
+        while (true) {
+            try {
+                if (!it.hasNext()) {
+                    break;
+                }
+                extractors.add(it.next());
+            } catch (ServiceConfigurationError e) {
+                logger.throwing("MetadataExtractor", "registeredExtractors", e);
             }
-            extractors.add(extractor);
-        } catch (Throwable e) {
-            logger.throwing("MetadataExtractor", "addExtractorByClass", e);
         }
+        return extractors;
+    }
+
+    /**
+     * Whether archive content (not name) looks like a package of this platform.
+     */
+    protected boolean recognizes(ArchiveIndex archive) throws IOException {
+        return false;
     }
 
     protected boolean checkFileAcceptable(File file) {
@@ -57,15 +87,24 @@ public abstract class MetadataExtractor implements Comparable<MetadataExtractor>
     }
 
     public boolean extractTo(Metadata metadata, File file, PrintStream logger) {
+        try (ArchiveIndex archive = new ArchiveIndex(file)) {
+            return extractTo(metadata, archive, logger);
+        } catch (IOException e) {
+            MetadataExtractor.logger.throwing("MetadataExtractor", "extractTo", e);
+            return false;
+        }
+    }
+
+    public boolean extractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger) {
         try {
-            return tryExtractTo(metadata, file, logger);
+            return tryExtractTo(metadata, archive, logger);
         } catch (Throwable e) {
-            MetadataExtractor.logger.throwing("MetadataExtractor", "addExtractorByClass", e);
+            MetadataExtractor.logger.throwing("MetadataExtractor", "extractTo", e);
             return false;
         }
     }
 
-    protected abstract boolean tryExtractTo(Metadata metadata, File file, PrintStream logger);
+    protected abstract boolean tryExtractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger);
 
     protected void report(String msg, Object ...args) {
         if (jenkinsLogger != null) {
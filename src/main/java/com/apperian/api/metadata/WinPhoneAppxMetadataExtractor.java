@@ -1,11 +1,11 @@
 package com.apperian.api.metadata;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.Map;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import javax.xml.xpath.XPathExpressionException;
 
 import com.apperian.api.metadata.Metadata.KnownFields;
 
@@ -13,17 +13,25 @@ public class WinPhoneAppxMetadataExtractor extends MetadataExtractor {
     public WinPhoneAppxMetadataExtractor() {
     }
 
+    private static final String DISPLAY_NAME = "Package/Properties/DisplayName";
+    private static final String PUBLISHER = "Package/Properties/PublisherDisplayName";
+    private static final String VERSION = "Package/Identity/@Version";
+    private static final String IDENTITY = "Package/Identity/@Name";
+    private static final String DESCRIPTION = "Package/Applications/Application/VisualElements/@Description";
+
+    private static final XMLFieldReader MANIFEST_FIELDS =
+            new XMLFieldReader(DISPLAY_NAME, PUBLISHER, VERSION, IDENTITY, DESCRIPTION);
+
     @Override
-    public boolean tryExtractTo(Metadata metadata, File file, PrintStream logger) {
+    public boolean tryExtractTo(Metadata metadata, ArchiveIndex archive, PrintStream logger) {
         this.jenkinsLogger = logger;
-        try (ZipFile zip = new ZipFile(file)) {
-            ZipEntry entry = zip.getEntry("AppxManifest.xml");
+        try {
+            ZipEntry entry = archive.getEntry("AppxManifest.xml");
             if (entry == null) {
                 return false;
             }
-            try (InputStream in = zip.getInputStream(entry)) {
-                XMLDoc doc = new XMLDoc(in);
-                extractProperties(metadata, doc);
+            try (InputStream in = archive.getInputStream(entry)) {
+                extractProperties(metadata, MANIFEST_FIELDS.read(in));
             }
         } catch (Exception ex) {
             ex.printStackTrace();
@@ -32,17 +40,24 @@ public class WinPhoneAppxMetadataExtractor extends MetadataExtractor {
         return true;
     }
 
-    private void extractProperties(Metadata metadata, XMLDoc doc) throws XPathExpressionException {
-        String name = doc.extractValue("Package/Properties/DisplayName");
-        String author = doc.extractValue("Package/Properties/PublisherDisplayName");
-        String versionName = doc.extractValue("Package/Identity/@Version");
-        String description = doc.extractValue("Package/Applications/Application[1]/VisualElements/@Description");
+    private void extractProperties(Metadata metadata, Map<String, String> fields) {
+        String name = fields.get(DISPLAY_NAME);
+        String author = fields.get(PUBLISHER);
+        String versionName = fields.get(VERSION);
+        String description = fields.get(DESCRIPTION);
+        String identity = fields.get(IDENTITY);
 
         setAndLog(metadata, KnownFields.NAME, name);
         setAndLog(metadata, KnownFields.AUTHOR, author);
         setAndLog(metadata, KnownFields.VERSION, versionName);
         setAndLog(metadata, KnownFields.SHORT_DESCRIPTION, description);
         setAndLog(metadata, KnownFields.LONG_DESCRIPTION, description);
+        setAndLog(metadata, KnownFields.BUNDLE_ID, identity);
+    }
+
+    @Override
+    protected boolean recognizes(ArchiveIndex archive) throws IOException {
+        return archive.getEntry("AppxManifest.xml") != null;
     }
 
     @Override
@@ -0,0 +1,109 @@
+package com.apperian.api.metadata;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader for descriptors where only a few fields are needed.
+ * Paths are slash separated local names from the root, namespaces ignored,
+ * optionally ending with <code>@attribute</code>; the first match wins and
+ * reading stops as soon as all paths are resolved.
+ */
+class XMLFieldReader {
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Set<String> paths;
+
+    public XMLFieldReader(String... paths) {
+        this.paths = new LinkedHashSet<>();
+        for (String path : paths) {
+            this.paths.add(path);
+        }
+    }
+
+    /**
+     * @return values by path, missing paths map to empty string
+     */
+    public Map<String, String> read(InputStream in) throws XMLStreamException {
+        Map<String, String> values = new HashMap<>();
+        Set<String> pending = new LinkedHashSet<>(paths);
+
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        try {
+            List<String> stack = new ArrayList<>();
+            String textPath = null;
+            StringBuilder text = new StringBuilder();
+
+            while (!pending.isEmpty() && reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        stack.add(reader.getLocalName());
+                        String path = join(stack);
+
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            String attrPath = path + "/@" + reader.getAttributeLocalName(i);
+                            if (pending.remove(attrPath)) {
+                                values.put(attrPath, reader.getAttributeValue(i).trim());
+                            }
+                        }
+                        if (textPath == null && pending.contains(path)) {
+                            textPath = path;
+                            text.setLength(0);
+                        }
+                        break;
+
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (textPath != null) {
+                            text.append(reader.getText());
+                        }
+                        break;
+
+                    case XMLStreamConstants.END_ELEMENT:
+                        if (textPath != null && textPath.equals(join(stack))) {
+                            pending.remove(textPath);
+                            values.put(textPath, text.toString().trim());
+                            textPath = null;
+                        }
+                        stack.remove(stack.size() - 1);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        for (String path : pending) {
+            values.put(path, "");
+        }
+        return values;
+    }
+
+    private static String join(List<String> stack) {
+        StringBuilder sb = new StringBuilder();
+        for (String name : stack) {
+            if (sb.length() > 0) {
+                sb.append('/');
+            }
+            sb.append(name);
+        }
+        return sb.toString();
+    }
+}
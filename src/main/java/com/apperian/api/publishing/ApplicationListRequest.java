@@ -3,6 +3,8 @@ package com.apperian.api.publishing;
 import com.apperian.api.APIConstants;
 import com.apperian.api.EASEEndpoint;
 import com.apperian.api.EASERequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -14,12 +16,24 @@ public class ApplicationListRequest extends EASERequest {
         this.params = new Params();
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isIdempotent() {
+        return true;
+    }
+
     @Override
     public ApplicationListResponse call(EASEEndpoint endpoint) throws IOException {
         this.params.token = endpoint.getSessionToken();
         return doJsonRpc(endpoint, this, ApplicationListResponse.class);
     }
 
+    @Override
+    public ListenableFuture<ApplicationListResponse> callAsync(EASEEndpoint endpoint) {
+        this.params.token = endpoint.getSessionToken();
+        return doJsonRpcAsync(endpoint, this, ApplicationListResponse.class);
+    }
+
     public static class Params {
         public String token;
     }
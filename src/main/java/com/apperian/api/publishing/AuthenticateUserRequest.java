@@ -3,6 +3,8 @@ package com.apperian.api.publishing;
 import com.apperian.api.APIConstants;
 import com.apperian.api.EASEEndpoint;
 import com.apperian.api.EASERequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -16,11 +18,22 @@ public class AuthenticateUserRequest extends EASERequest {
         this.params.password = password;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isIdempotent() {
+        return true;
+    }
+
     @Override
     public AuthenticateUserResponse call(EASEEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, AuthenticateUserResponse.class);
     }
 
+    @Override
+    public ListenableFuture<AuthenticateUserResponse> callAsync(EASEEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, AuthenticateUserResponse.class);
+    }
+
     static class Params {
         public String email;
         public String password;
@@ -4,6 +4,7 @@ import com.apperian.api.APIConstants;
 import com.apperian.api.EASEEndpoint;
 import com.apperian.api.EASERequest;
 import com.apperian.api.metadata.Metadata;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -25,6 +26,12 @@ public class PublishApplicationRequest extends EASERequest {
         return doJsonRpc(endpoint, this, PublishApplicationResponse.class);
     }
 
+    @Override
+    public ListenableFuture<PublishApplicationResponse> callAsync(EASEEndpoint endpoint) {
+        this.params.token = endpoint.getSessionToken();
+        return doJsonRpcAsync(endpoint, this, PublishApplicationResponse.class);
+    }
+
     public static class Params {
         public String token;
         public String transactionID;
@@ -3,6 +3,7 @@ package com.apperian.api.publishing;
 import com.apperian.api.APIConstants;
 import com.apperian.api.EASEEndpoint;
 import com.apperian.api.EASERequest;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -21,6 +22,12 @@ public class UpdateApplicationRequest extends EASERequest {
         return doJsonRpc(endpoint, this, UpdateApplicationResponse.class);
     }
 
+    @Override
+    public ListenableFuture<UpdateApplicationResponse> callAsync(EASEEndpoint endpoint) {
+        this.params.token = endpoint.getSessionToken();
+        return doJsonRpcAsync(endpoint, this, UpdateApplicationResponse.class);
+    }
+
     public static class Params {
         public String token;
         public String appID;
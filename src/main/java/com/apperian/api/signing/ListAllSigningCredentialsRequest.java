@@ -3,6 +3,7 @@ package com.apperian.api.signing;
 
 import com.apperian.api.ApperianEndpoint;
 import com.apperian.api.ApperianRequest;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -16,6 +17,11 @@ public class ListAllSigningCredentialsRequest extends ApperianRequest {
         return doJsonRpc(endpoint, this, ListAllSigningCredentialsResponse.class);
     }
 
+    @Override
+    public ListenableFuture<ListAllSigningCredentialsResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, ListAllSigningCredentialsResponse.class);
+    }
+
     @Override
     public String toString() {
         return "ListAllSigningCredentialsRequest{" +
@@ -7,6 +7,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.http.Header;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 import java.util.List;
@@ -18,7 +19,8 @@ public class SignApplicationRequest extends ApperianRequest {
         super(Type.PUT,
                 "/applications/" +
                 applicationId + "/credentials/" +
-                        credentialId);
+                        credentialId,
+                "/applications/{id}/credentials/{id}");
     }
 
     @Override
@@ -32,4 +34,9 @@ public class SignApplicationRequest extends ApperianRequest {
     public SignApplicationResponse call(ApperianEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, SignApplicationResponse.class);
     }
+
+    @Override
+    public ListenableFuture<SignApplicationResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, SignApplicationResponse.class);
+    }
 }
@@ -2,7 +2,9 @@ package com.apperian.api.users;
 
 import com.apperian.api.ApperianEndpoint;
 import com.apperian.api.ApperianRequest;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.IOException;
 
@@ -16,12 +18,23 @@ public class AuthenticateUserRequest extends ApperianRequest {
         params.password = password;
     }
 
+    @Override
+    @JsonIgnore
+    public boolean isIdempotent() {
+        return true;
+    }
+
     @Override
     public AuthenticateUserResponse call(ApperianEndpoint endpoint) throws IOException {
         return doJsonRpc(endpoint, this, AuthenticateUserResponse.class);
     }
 
-    static class Params {
+    @Override
+    public ListenableFuture<AuthenticateUserResponse> callAsync(ApperianEndpoint endpoint) {
+        return doJsonRpcAsync(endpoint, this, AuthenticateUserResponse.class);
+    }
+
+    public static class Params {
         @JsonProperty("user_id")
         public String userId;
 
@@ -0,0 +1,51 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.Serializable;
+
+import com.apperian.api.EASEEndpoint;
+
+/**
+ * EASE session established on controller and shipped to the agent
+ * holding the file, so the agent needs neither Jenkins nor the stored
+ * credentials: only the session token and the resolved proxy.
+ * The token is not renewed on the agent.
+ */
+public class AgentSession implements Serializable {
+    private final String easeUrl;
+    private final String sessionToken;
+    private final ProxySettings proxySettings;
+
+    public AgentSession(String easeUrl, String sessionToken, ProxySettings proxySettings) {
+        this.easeUrl = easeUrl;
+        this.sessionToken = sessionToken;
+        this.proxySettings = proxySettings;
+    }
+
+    public static AgentSession of(EASEEndpoint endpoint) {
+        return new AgentSession(endpoint.getUrl(), endpoint.getSessionToken(), endpoint.getProxySettings());
+    }
+
+    public EASEEndpoint createEndpoint() {
+        EASEEndpoint endpoint = new EASEEndpoint(easeUrl, proxySettings);
+        endpoint.restoreSession(sessionToken);
+        return endpoint;
+    }
+
+    public String getEaseUrl() {
+        return easeUrl;
+    }
+
+    public ProxySettings getProxySettings() {
+        return proxySettings;
+    }
+
+    @Override
+    public String toString() {
+        return "AgentSession{" +
+                "easeUrl='" + easeUrl + '\'' +
+                ", proxy=" + proxySettings +
+                '}';
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.SortedMap;
+
+import com.apperian.api.ApiMetrics;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+
+/**
+ * "Manage Jenkins" page listing {@link ApiMetrics}. The same metrics are
+ * registered in JMX under {@link ApiMetrics#JMX_DOMAIN}.
+ */
+@Extension
+public class ApiMetricsLink extends ManagementLink {
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "apperianMetrics";
+    }
+
+    public String getDisplayName() {
+        return "Apperian API Metrics";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Latency, errors, upload throughput and cache hit rates of Apperian and EASE API calls.";
+    }
+
+    public SortedMap<String, String> getMetrics() {
+        return ApiMetrics.getInstance().describe();
+    }
+}
@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.ease;
+
+import com.apperian.api.ApiMappers;
+import com.apperian.api.ApiMetrics;
+import com.apperian.api.HttpClientRegistry;
+import com.codahale.metrics.Gauge;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+
+/**
+ * Prepares JSON readers and writers of the API on plugin start and
+ * closes pooled http clients when Jenkins stops.
+ */
+public class ApiWarmup {
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void warmUpMappers() {
+        ApiMappers.getInstance().warmUp();
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMetrics() {
+        ApiMetrics metrics = ApiMetrics.getInstance();
+        for (final LookupCache<?> cache : new LookupCache<?>[]{EaseUpload.DescriptorImpl.APPLICATIONS,
+                                                                EaseUpload.DescriptorImpl.CREDENTIALS}) {
+            metrics.gauge("cache." + cache.getName() + ".hitRate", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return cache.getHitRate();
+                }
+            });
+        }
+        metrics.gauge("signing.inFlight", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return SigningTracker.getInstance().getInFlight();
+            }
+        });
+        metrics.startJmx();
+    }
+
+    @Terminator
+    public static void shutDownHttpClients() {
+        HttpClientRegistry.getInstance().shutdown();
+    }
+}
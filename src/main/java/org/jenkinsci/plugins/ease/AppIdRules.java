@@ -0,0 +1,155 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import hudson.FilePath;
+
+/**
+ * Maps files found for one upload to applications, one rule per line:
+ * <pre>
+ * white-label/acme/.*\.apk => APP_ID_ACME
+ * bundleId:com\.example\.globex => APP_ID_GLOBEX
+ * </pre>
+ * A rule matches when its regular expression is found in the file path
+ * relative to workspace, or with <code>bundleId:</code> in the package
+ * identifier read from the file. First matching rule wins.
+ */
+public class AppIdRules {
+    static final String BUNDLE_ID_PREFIX = "bundleId:";
+    private static final String ARROW = "=>";
+
+    private final List<Rule> rules;
+
+    private AppIdRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming the line that is not a rule
+     */
+    public static AppIdRules parse(String text) {
+        List<Rule> rules = new ArrayList<>();
+        if (text == null) {
+            return new AppIdRules(rules);
+        }
+        for (String line : text.split("\r?\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int arrow = line.lastIndexOf(ARROW);
+            if (arrow < 0) {
+                throw new IllegalArgumentException("Expected 'pattern => appId' in '" + line + "'");
+            }
+            String pattern = line.substring(0, arrow).trim();
+            String appId = line.substring(arrow + ARROW.length()).trim();
+            boolean bundleId = pattern.startsWith(BUNDLE_ID_PREFIX);
+            if (bundleId) {
+                pattern = pattern.substring(BUNDLE_ID_PREFIX.length()).trim();
+            }
+            if (pattern.isEmpty() || appId.isEmpty()) {
+                throw new IllegalArgumentException("Expected 'pattern => appId' in '" + line + "'");
+            }
+            try {
+                rules.add(new Rule(bundleId, Pattern.compile(pattern), appId));
+            } catch (PatternSyntaxException ex) {
+                throw new IllegalArgumentException("Bad regular expression in '" + line + "': " + ex.getDescription());
+            }
+        }
+        return new AppIdRules(rules);
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    public boolean needsBundleId() {
+        for (Rule rule : rules) {
+            if (rule.bundleId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return appId of the first matching rule, null if none matches
+     */
+    public String appIdFor(String path, String bundleId) {
+        for (Rule rule : rules) {
+            String value = rule.bundleId ? bundleId : path;
+            if (value != null && rule.pattern.matcher(value).find()) {
+                return rule.appId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces every fan-out upload by one upload per file it found, with
+     * appId given by its rules. Bundle ids are read on the node holding
+     * workspace, in one call for all files.
+     *
+     * @return uploads to publish, null if a file could not be mapped
+     */
+    public static List<EaseUpload> fanOut(FilePath workspace,
+                                          List<EaseUpload> uploads,
+                                          PrintStream buildLog) throws IOException, InterruptedException {
+        List<String> bundleIdPaths = new ArrayList<>();
+        for (EaseUpload upload : uploads) {
+            if (upload.isFanOut() && AppIdRules.parse(upload.getAppIdRules()).needsBundleId()) {
+                for (WorkspaceResolver.Match match : upload.getFanOutMatches()) {
+                    bundleIdPaths.add(match.getPath());
+                }
+            }
+        }
+        Map<String, String> bundleIds = bundleIdPaths.isEmpty()
+                ? Collections.<String, String>emptyMap()
+                : workspace.act(new BundleIdReader(bundleIdPaths));
+
+        boolean ok = true;
+        List<EaseUpload> result = new ArrayList<>(uploads.size());
+        for (EaseUpload upload : uploads) {
+            if (!upload.isFanOut()) {
+                result.add(upload);
+                continue;
+            }
+            AppIdRules rules = AppIdRules.parse(upload.getAppIdRules());
+            for (WorkspaceResolver.Match match : upload.getFanOutMatches()) {
+                String bundleId = bundleIds.get(match.getPath());
+                String appId = rules.appIdFor(match.getPath(), bundleId);
+                if (appId == null) {
+                    appId = upload.getAppId();
+                }
+                if (appId == null || appId.isEmpty()) {
+                    buildLog.println("No appId rule matches '" + match.getPath() + "'" +
+                            (bundleId != null ? " (bundleId '" + bundleId + "')" : ""));
+                    ok = false;
+                    continue;
+                }
+                buildLog.println("Publishing '" + match.getPath() + "' to appId='" + appId + "'");
+                result.add(upload.forFile(workspace.child(match.getPath()), match.getSize(), appId));
+            }
+        }
+        return ok ? result : null;
+    }
+
+    private static final class Rule {
+        private final boolean bundleId;
+        private final Pattern pattern;
+        private final String appId;
+
+        Rule(boolean bundleId, Pattern pattern, String appId) {
+            this.bundleId = bundleId;
+            this.pattern = pattern;
+            this.appId = appId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.apperian.api.metadata.ArchiveIndex;
+import com.apperian.api.metadata.Metadata;
+import com.apperian.api.metadata.MetadataExtractor;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+
+/**
+ * Reads package identifiers of files in workspace, for {@link AppIdRules}.
+ * Files with no recognizable identifier are left out of the result.
+ */
+public class BundleIdReader implements FilePath.FileCallable<Map<String, String>> {
+    private static final PrintStream NO_LOG = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+
+    private final List<String> paths;
+
+    public BundleIdReader(List<String> paths) {
+        this.paths = new ArrayList<>(paths);
+    }
+
+    public Map<String, String> invoke(File workspace, VirtualChannel channel) throws IOException {
+        Map<String, String> bundleIds = new HashMap<>();
+        for (String path : paths) {
+            String bundleId = read(new File(workspace, path));
+            if (bundleId != null) {
+                bundleIds.put(path, bundleId);
+            }
+        }
+        return bundleIds;
+    }
+
+    private static String read(File file) {
+        try (ArchiveIndex archive = new ArchiveIndex(file)) {
+            for (MetadataExtractor extractor : MetadataExtractor.extractorsFor(archive)) {
+                Metadata metadata = new Metadata(new HashMap<String, String>());
+                if (extractor.extractTo(metadata, archive, NO_LOG)) {
+                    String bundleId = metadata.getValues().get(Metadata.KnownFields.BUNDLE_ID);
+                    if (bundleId != null) {
+                        return bundleId;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            // not an archive, left to filename rules
+        }
+        return null;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
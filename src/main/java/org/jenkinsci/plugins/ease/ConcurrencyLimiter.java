@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.ease;
+
+/**
+ * Counting semaphore whose limit can be changed at runtime.
+ */
+public class ConcurrencyLimiter {
+    private int limit;
+    private int active;
+
+    public ConcurrencyLimiter(int limit) {
+        this.limit = Math.max(1, limit);
+    }
+
+    public synchronized void acquire() throws InterruptedException {
+        while (active >= limit) {
+            wait();
+        }
+        active++;
+    }
+
+    public synchronized void release() {
+        active--;
+        notifyAll();
+    }
+
+    public synchronized void setLimit(int limit) {
+        this.limit = Math.max(1, limit);
+        notifyAll();
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getActive() {
+        return active;
+    }
+}
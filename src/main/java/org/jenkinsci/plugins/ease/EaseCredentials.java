@@ -75,7 +75,7 @@ public class EaseCredentials {
     public boolean authenticate(final JsonHttpEndpoint endpoint) {
         for (EaseUser user : credentials) {
             try {
-                if (endpoint.tryLogin(user.getUsername(), user.getPassword())) {
+                if (SessionCache.getInstance().login(endpoint, user)) {
                     return true;
                 }
             } catch (Exception e) {
@@ -0,0 +1,137 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.Set;
+
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import com.google.common.collect.ImmutableSet;
+
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+
+/**
+ * Pipeline counterpart of {@link EaseRecorder} for a single upload:
+ * <pre>
+ * publishToApperian prodEnv: 'EUROPE', username: 'user', appId: 'abc', filename: '**&#47;*.apk', signApp: true, credential: 'xyz'
+ * </pre>
+ * Runs as {@link EasePublishStepExecution}, which holds no executor
+ * while signing is in progress.
+ */
+public class EasePublishStep extends Step {
+    private final EaseUpload upload;
+
+    @DataBoundConstructor
+    public EasePublishStep(
+            String prodEnv,
+            String customEaseUrl,
+            String customApperianUrl,
+            String username,
+            String password,
+            String appId,
+            String filename,
+            String author,
+            String version,
+            String versionNotes,
+            boolean signApp,
+            String credential,
+            boolean enableApp,
+            boolean resumableUpload,
+            boolean forceRepublish) {
+        this.upload = new EaseUpload(prodEnv, customEaseUrl, customApperianUrl, username, password, appId, filename,
+                author, version, versionNotes, signApp, credential, enableApp, resumableUpload, forceRepublish);
+    }
+
+    public EaseUpload getUpload() {
+        return upload;
+    }
+
+    public String getProdEnv() {
+        return upload.getProdEnv();
+    }
+
+    public String getCustomEaseUrl() {
+        return upload.getCustomEaseUrl();
+    }
+
+    public String getCustomApperianUrl() {
+        return upload.getCustomApperianUrl();
+    }
+
+    public String getUsername() {
+        return upload.getUsername();
+    }
+
+    public String getPassword() {
+        return upload.getPassword();
+    }
+
+    public String getAppId() {
+        return upload.getAppId();
+    }
+
+    public String getFilename() {
+        return upload.getFilename();
+    }
+
+    public String getAuthor() {
+        return upload.getAuthor();
+    }
+
+    public String getVersion() {
+        return upload.getVersion();
+    }
+
+    public String getVersionNotes() {
+        return upload.getVersionNotes();
+    }
+
+    public boolean isSignApp() {
+        return upload.isSignApp();
+    }
+
+    public String getCredential() {
+        return upload.getCredential();
+    }
+
+    public boolean isEnableApp() {
+        return upload.isEnableApp();
+    }
+
+    public boolean isResumableUpload() {
+        return upload.isResumableUpload();
+    }
+
+    public boolean isForceRepublish() {
+        return upload.isForceRepublish();
+    }
+
+    @Override
+    public StepExecution start(StepContext context) throws Exception {
+        return new EasePublishStepExecution(upload, context);
+    }
+
+    @Extension(optional = true)
+    public static final class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<Class<?>> getRequiredContext() {
+            return ImmutableSet.<Class<?>>of(Run.class, FilePath.class, TaskListener.class, EnvVars.class);
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "publishToApperian";
+        }
+
+        @Override
+        public String getDisplayName() {
+            return "Publish to Apperian";
+        }
+    }
+}
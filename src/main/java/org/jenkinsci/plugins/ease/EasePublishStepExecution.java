@@ -0,0 +1,358 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+
+import com.apperian.api.ApperianEndpoint;
+import com.apperian.api.application.UpdateApplicationMetadataResponse;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.FilePath;
+import hudson.XmlFile;
+import hudson.model.BuildListener;
+import hudson.model.Run;
+import hudson.model.StreamBuildListener;
+import hudson.model.TaskListener;
+import hudson.util.Function1;
+import jenkins.model.Jenkins;
+
+/**
+ * Runs {@link EasePublishStep} without occupying an executor. Workspace
+ * search, login and the upload run on a small shared pool; signing is
+ * awaited through {@link SigningTracker} and enabling through the
+ * non-blocking client, so no thread is held while they are in progress.
+ *
+ * Phase of the publish is saved to the build directory. After a controller
+ * restart an interrupted upload is started again, while a publish waiting
+ * for signing or enabling continues from there.
+ */
+public class EasePublishStepExecution extends StepExecution {
+    private static final Logger logger = Logger.getLogger(EasePublishStepExecution.class.getName());
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ListeningExecutorService POOL = MoreExecutors.listeningDecorator(
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Apperian publish step #" + THREAD_COUNTER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }));
+
+    enum Phase {
+        UPLOAD,
+        SIGN,
+        SIGNING,
+        ENABLE,
+        DONE
+    }
+
+    private final EaseUpload upload;
+    private final String id = UUID.randomUUID().toString();
+    private EaseUpload expandedUpload;
+
+    private transient State state;
+    private transient PublishTimings timings;
+    private transient volatile Future<?> current;
+    private transient volatile boolean stopped;
+
+    public EasePublishStepExecution(EaseUpload upload, StepContext context) {
+        super(context);
+        this.upload = upload;
+    }
+
+    @Override
+    public boolean start() throws Exception {
+        final EnvVars env = getContext().get(EnvVars.class);
+        expandedUpload = upload.expand(new Function1<String, String>() {
+            @Override
+            public String call(String value) {
+                return env.expand(value);
+            }
+        });
+        if (!expandedUpload.checkOk()) {
+            throw new AbortException("Specify appId, filename and credentials to publish to Apperian");
+        }
+
+        state = new State();
+        upload();
+        return false;
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        try {
+            state = loadState();
+            PrintStream log = listener().getLogger();
+            switch (state.phase) {
+                case UPLOAD:
+                    log.println("Controller restarted while publishing to Apperian, publishing again");
+                    upload();
+                    break;
+                case DONE:
+                    finish();
+                    break;
+                default:
+                    log.println("Controller restarted while publishing to Apperian, continuing from " + state.phase);
+                    postPublish(state.phase);
+            }
+        } catch (Exception ex) {
+            fail(ex);
+        }
+    }
+
+    @Override
+    public void stop(Throwable cause) throws Exception {
+        stopped = true;
+        Future<?> future = current;
+        if (future != null) {
+            future.cancel(true);
+        }
+        deleteState();
+        getContext().onFailure(cause);
+    }
+
+    private void upload() throws IOException, InterruptedException {
+        setPhase(Phase.UPLOAD);
+        final BuildListener listener = listener();
+        final FilePath workspace = getContext().get(FilePath.class);
+        final UploadRunner runner = runner();
+
+        watch(POOL.submit(new Callable<PublishResult>() {
+            @Override
+            public PublishResult call() throws Exception {
+                if (!expandedUpload.searchWorkspace(workspace, listener.getLogger())) {
+                    throw new AbortException("No single file to publish for '" + expandedUpload.getFilename() + "'");
+                }
+                return runner.upload(expandedUpload, listener, getTimings());
+            }
+        }), new FutureCallback<PublishResult>() {
+            @Override
+            public void onSuccess(PublishResult result) {
+                if (!result.isSuccess()) {
+                    fail(new AbortException("Publishing to Apperian failed"));
+                    return;
+                }
+                state.result = result;
+                try {
+                    if (result.isSkipped() || (!expandedUpload.isSignApp() && !expandedUpload.isEnableApp())) {
+                        finish();
+                    } else {
+                        postPublish(expandedUpload.isSignApp() ? Phase.SIGN : Phase.ENABLE);
+                    }
+                } catch (Exception ex) {
+                    fail(ex);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                fail(t);
+            }
+        });
+    }
+
+    private void postPublish(final Phase from) throws IOException, InterruptedException {
+        setPhase(from);
+        final PrintStream log = listener().getLogger();
+        final UploadRunner runner = runner();
+
+        ListenableFuture<ApperianEndpoint> login = POOL.submit(new Callable<ApperianEndpoint>() {
+            @Override
+            public ApperianEndpoint call() throws Exception {
+                ApperianEndpoint endpoint = runner.loginApperian(expandedUpload, log);
+                if (endpoint == null) {
+                    throw new AbortException("Could not log in to Apperian");
+                }
+                return endpoint;
+            }
+        });
+
+        watch(Futures.transform(login, new AsyncFunction<ApperianEndpoint, UpdateApplicationMetadataResponse>() {
+            @Override
+            public ListenableFuture<UpdateApplicationMetadataResponse> apply(ApperianEndpoint endpoint) throws Exception {
+                AsyncFunction<Object, UpdateApplicationMetadataResponse> enable = thenEnable(runner, endpoint, log);
+                switch (from) {
+                    case SIGN:
+                        return Futures.transform(runner.signAppAsync(expandedUpload, endpoint, log, new Runnable() {
+                            @Override
+                            public void run() {
+                                setPhase(Phase.SIGNING);
+                            }
+                        }), enable);
+                    case SIGNING:
+                        return Futures.transform(runner.awaitSigningAsync(expandedUpload, endpoint, log), enable);
+                    default:
+                        return enable.apply(null);
+                }
+            }
+        }), new FutureCallback<UpdateApplicationMetadataResponse>() {
+            @Override
+            public void onSuccess(UpdateApplicationMetadataResponse response) {
+                try {
+                    finish();
+                } catch (Exception ex) {
+                    fail(ex);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                fail(t);
+            }
+        });
+    }
+
+    private AsyncFunction<Object, UpdateApplicationMetadataResponse> thenEnable(final UploadRunner runner,
+                                                                              final ApperianEndpoint endpoint,
+                                                                              final PrintStream log) {
+        return new AsyncFunction<Object, UpdateApplicationMetadataResponse>() {
+            @Override
+            public ListenableFuture<UpdateApplicationMetadataResponse> apply(Object signed) {
+                if (!expandedUpload.isEnableApp()) {
+                    return Futures.immediateFuture(null);
+                }
+                setPhase(Phase.ENABLE);
+                return runner.enableAppAsync(expandedUpload, endpoint, log);
+            }
+        };
+    }
+
+    private void finish() throws IOException, InterruptedException {
+        PublishResult result = state.result;
+        if (state.phase != Phase.DONE && result != null && !result.isSkipped()) {
+            runner().record(expandedUpload, result);
+        }
+        setPhase(Phase.DONE);
+        report(true);
+        deleteState();
+        getContext().onSuccess(result != null ? result.getFileID() : null);
+    }
+
+    private void fail(Throwable cause) {
+        if (stopped) {
+            return;
+        }
+        try {
+            report(false);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Failed to report Apperian publish timings", ex);
+        }
+        deleteState();
+        getContext().onFailure(cause);
+    }
+
+    private void report(boolean success) throws IOException, InterruptedException {
+        PublishTimings timings = getTimings();
+        timings.printSummary(listener().getLogger());
+        String file = expandedUpload.getFilePath() != null
+                ? expandedUpload.getFilePath().getName()
+                : expandedUpload.getFilename();
+        timingsAction(getContext().get(Run.class)).add(file + " -> " + expandedUpload.getAppId(), success, timings);
+    }
+
+    private <T> void watch(ListenableFuture<T> future, FutureCallback<T> callback) {
+        current = future;
+        Futures.addCallback(future, callback);
+    }
+
+    private UploadRunner runner() throws IOException, InterruptedException {
+        Run<?, ?> run = getContext().get(Run.class);
+        EaseRecorder.DescriptorImpl descriptor = Jenkins.getInstance().getDescriptorByType(EaseRecorder.DescriptorImpl.class);
+        return new UploadRunner(PublishLedger.get(),
+                                SigningTracker.getInstance(),
+                                descriptor.getUploadScheduler(),
+                                run.getParent().getFullName(),
+                                timingsAction(run));
+    }
+
+    private static PublishTimingsAction timingsAction(Run<?, ?> run) {
+        // parallel branches of one build share the action
+        synchronized (PublishTimingsAction.class) {
+            PublishTimingsAction action = run.getAction(PublishTimingsAction.class);
+            if (action == null) {
+                action = new PublishTimingsAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+
+    private BuildListener listener() throws IOException, InterruptedException {
+        TaskListener listener = getContext().get(TaskListener.class);
+        if (listener instanceof BuildListener) {
+            return (BuildListener) listener;
+        }
+        return new StreamBuildListener(listener.getLogger(), Charset.defaultCharset());
+    }
+
+    private synchronized PublishTimings getTimings() {
+        if (timings == null) {
+            timings = new PublishTimings();
+        }
+        return timings;
+    }
+
+    private synchronized void setPhase(Phase phase) {
+        state.phase = phase;
+        try {
+            stateFile().write(state);
+        } catch (Exception ex) {
+            logger.log(Level.WARNING, "Failed to save Apperian publish state " + id, ex);
+        }
+    }
+
+    private State loadState() throws IOException, InterruptedException {
+        XmlFile file = stateFile();
+        if (!file.exists()) {
+            // restarted before anything was saved
+            State initial = new State();
+            initial.phase = Phase.UPLOAD;
+            return initial;
+        }
+        return (State) file.read();
+    }
+
+    private void deleteState() {
+        try {
+            stateFile().getFile().delete();
+        } catch (Exception ex) {
+            logger.log(Level.FINE, "Failed to delete Apperian publish state " + id, ex);
+        }
+    }
+
+    private XmlFile stateFile() throws IOException, InterruptedException {
+        Run<?, ?> run = getContext().get(Run.class);
+        return new XmlFile(Jenkins.XSTREAM, new File(run.getRootDir(), "apperian-publish-" + id + ".xml"));
+    }
+
+    static class State {
+        Phase phase;
+        PublishResult result;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
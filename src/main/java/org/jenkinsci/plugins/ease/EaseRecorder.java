@@ -3,6 +3,7 @@ package org.jenkinsci.plugins.ease;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Logger;
@@ -10,9 +11,10 @@ import java.util.logging.Logger;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.StaplerRequest;
 
+import com.apperian.api.HttpClientRegistry;
+
 import hudson.EnvVars;
 import hudson.Extension;
-import hudson.FilePath;
 import hudson.Launcher;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
@@ -30,14 +32,30 @@ public class EaseRecorder extends Recorder {
     private static final Logger logger = Logger.getLogger(EaseRecorder.class.getName());
 
     private final List<EaseUpload> uploads;
+    private final boolean parallel;
+    private final int maxConcurrency;
 
-    @DataBoundConstructor
     public EaseRecorder(List<EaseUpload> uploads) {
+        this(uploads, false, 0);
+    }
+
+    @DataBoundConstructor
+    public EaseRecorder(List<EaseUpload> uploads, boolean parallel, int maxConcurrency) {
         this.uploads = uploads;
+        this.parallel = parallel;
+        this.maxConcurrency = maxConcurrency;
     }
 
     public List<EaseUpload> getUploads() { return uploads; }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
     @Override
     public boolean perform(final AbstractBuild build, Launcher launcher, final BuildListener listener) {
         final PrintStream buildLog = listener.getLogger();
@@ -52,7 +70,7 @@ public class EaseRecorder extends Recorder {
             List<EaseUpload> expandedUploads = new ArrayList<>(uploads.size());
 
             Function1<String, String> expandVarFunctions;
-            expandVarFunctions = new ExpandVariablesFunction(build, listener, buildLog);
+            expandVarFunctions = new ExpandVariablesFunction(environment(build, listener));
             for (EaseUpload upload : uploads) {
                 expandedUploads.add(upload.expand(expandVarFunctions));
             }
@@ -65,19 +83,42 @@ public class EaseRecorder extends Recorder {
                 }
             }
 
-            boolean ok = true;
-            for (EaseUpload upload : expandedUploads) {
-                ok &= upload.searchWorkspace(build.getWorkspace(), buildLog);
-            }
+            boolean ok = WorkspaceResolver.searchWorkspace(build.getWorkspace(), expandedUploads, buildLog);
             if (!ok) {
                 return false;
             }
 
+            boolean fanOut = false;
             for (EaseUpload upload : expandedUploads) {
-                FilePath path = upload.getFilePath();
-                PublishFileCallable callable = new PublishFileCallable(upload, listener);
+                fanOut |= upload.isFanOut();
+            }
+            if (fanOut) {
+                expandedUploads = AppIdRules.fanOut(build.getWorkspace(), expandedUploads, buildLog);
+                if (expandedUploads == null) {
+                    return false;
+                }
+            }
+
+            DescriptorImpl descriptor = getDescriptor();
+            PublishTimingsAction timingsAction = new PublishTimingsAction();
+            build.addAction(timingsAction);
+            UploadRunner runner = new UploadRunner(PublishLedger.get(),
+                                                   SigningTracker.getInstance(),
+                                                   descriptor.getUploadScheduler(),
+                                                   build.getProject().getFullName(),
+                                                   timingsAction);
+
+            if ((parallel || fanOut) && expandedUploads.size() > 1) {
+                int concurrency = maxConcurrency > 0 ? maxConcurrency : descriptor.getMaxGlobalConcurrency();
+                ParallelPublisher publisher = new ParallelPublisher(runner,
+                                                                    descriptor.getGlobalLimiter(),
+                                                                    concurrency,
+                                                                    buildLog);
+                return publisher.publish(expandedUploads);
+            }
 
-                if (!path.act(callable)) {
+            for (EaseUpload upload : expandedUploads) {
+                if (!runner.run(upload, listener).isSuccess()) {
                     ok = false;
                 }
             }
@@ -107,8 +148,81 @@ public class EaseRecorder extends Recorder {
 
     @Extension
     public static final class DescriptorImpl extends BuildStepDescriptor<Publisher> {
+        public static final int DEFAULT_MAX_GLOBAL_CONCURRENCY = 4;
+        public static final int DEFAULT_MAX_UPLOADS_PER_ENVIRONMENT = 2;
+
+        private int maxGlobalConcurrency = DEFAULT_MAX_GLOBAL_CONCURRENCY;
+        private int maxUploadsPerEnvironment = DEFAULT_MAX_UPLOADS_PER_ENVIRONMENT;
+        private int maxUploadKBps;
+        private int maxConnections;
+        private int maxConnectionsPerHost;
+        private int connectionIdleTimeoutSeconds;
+        private int connectionKeepAliveSeconds;
+
+        private transient ConcurrencyLimiter globalLimiter;
+        private transient UploadScheduler uploadScheduler;
+
         public DescriptorImpl() {
             load();
+            configureHttpClients();
+        }
+
+        public int getMaxGlobalConcurrency() {
+            return maxGlobalConcurrency > 0 ? maxGlobalConcurrency : DEFAULT_MAX_GLOBAL_CONCURRENCY;
+        }
+
+        public synchronized ConcurrencyLimiter getGlobalLimiter() {
+            if (globalLimiter == null) {
+                globalLimiter = new ConcurrencyLimiter(getMaxGlobalConcurrency());
+            }
+            return globalLimiter;
+        }
+
+        public int getMaxUploadsPerEnvironment() {
+            return maxUploadsPerEnvironment > 0 ? maxUploadsPerEnvironment : DEFAULT_MAX_UPLOADS_PER_ENVIRONMENT;
+        }
+
+        public int getMaxUploadKBps() {
+            return Math.max(0, maxUploadKBps);
+        }
+
+        public int getMaxConnections() {
+            return maxConnections > 0 ? maxConnections : HttpClientRegistry.DEFAULT_MAX_TOTAL;
+        }
+
+        public int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost > 0 ? maxConnectionsPerHost : HttpClientRegistry.DEFAULT_MAX_PER_ROUTE;
+        }
+
+        public int getConnectionIdleTimeoutSeconds() {
+            return connectionIdleTimeoutSeconds > 0
+                    ? connectionIdleTimeoutSeconds
+                    : HttpClientRegistry.DEFAULT_IDLE_TIMEOUT_SECONDS;
+        }
+
+        public int getConnectionKeepAliveSeconds() {
+            return connectionKeepAliveSeconds > 0
+                    ? connectionKeepAliveSeconds
+                    : HttpClientRegistry.DEFAULT_KEEP_ALIVE_SECONDS;
+        }
+
+        private void configureHttpClients() {
+            HttpClientRegistry.getInstance().configure(getMaxConnections(),
+                                                       getMaxConnectionsPerHost(),
+                                                       getConnectionIdleTimeoutSeconds(),
+                                                       getConnectionKeepAliveSeconds());
+        }
+
+        public synchronized UploadScheduler getUploadScheduler() {
+            if (uploadScheduler == null) {
+                uploadScheduler = new UploadScheduler(getMaxUploadsPerEnvironment(), getMaxUploadKBps() * 1024L);
+            }
+            return uploadScheduler;
+        }
+
+        public List<LookupCache<?>> getLookupCaches() {
+            return Arrays.<LookupCache<?>>asList(EaseUpload.DescriptorImpl.APPLICATIONS,
+                                                 EaseUpload.DescriptorImpl.CREDENTIALS);
         }
 
         public boolean isApplicable(Class<? extends AbstractProject> aClass) {
@@ -121,34 +235,46 @@ public class EaseRecorder extends Recorder {
 
         @Override
         public boolean configure(StaplerRequest req, JSONObject formData) throws FormException {
+            maxGlobalConcurrency = formData.optInt("maxGlobalConcurrency", DEFAULT_MAX_GLOBAL_CONCURRENCY);
+            maxUploadsPerEnvironment = formData.optInt("maxUploadsPerEnvironment", DEFAULT_MAX_UPLOADS_PER_ENVIRONMENT);
+            maxUploadKBps = formData.optInt("maxUploadKBps", 0);
+            maxConnections = formData.optInt("maxConnections", HttpClientRegistry.DEFAULT_MAX_TOTAL);
+            maxConnectionsPerHost = formData.optInt("maxConnectionsPerHost", HttpClientRegistry.DEFAULT_MAX_PER_ROUTE);
+            connectionIdleTimeoutSeconds = formData.optInt("connectionIdleTimeoutSeconds",
+                                                           HttpClientRegistry.DEFAULT_IDLE_TIMEOUT_SECONDS);
+            connectionKeepAliveSeconds = formData.optInt("connectionKeepAliveSeconds",
+                                                         HttpClientRegistry.DEFAULT_KEEP_ALIVE_SECONDS);
+            getGlobalLimiter().setLimit(getMaxGlobalConcurrency());
+            getUploadScheduler().setLimits(getMaxUploadsPerEnvironment(), getMaxUploadKBps() * 1024L);
+            configureHttpClients();
             save();
             return super.configure(req,formData);
         }
 
     }
 
-    private static class ExpandVariablesFunction implements Function1<String, String> {
-        private final AbstractBuild build;
-        private final BuildListener listener;
-        private final PrintStream logger;
+    private static EnvVars environment(AbstractBuild build, BuildListener listener) throws InterruptedException {
+        try {
+            return build.getEnvironment(listener);
+        } catch (IOException e) {
+            listener.getLogger().println("Environment expand error: " + e);
+            return new EnvVars();
+        }
+    }
 
-        public ExpandVariablesFunction(AbstractBuild build, BuildListener listener, PrintStream logger) {
-            this.build = build;
-            this.listener = listener;
-            this.logger = logger;
+    /**
+     * Expands against a snapshot of the build environment taken once per
+     * build, computing it is expensive with many node properties or EnvInject.
+     */
+    static class ExpandVariablesFunction implements Function1<String, String> {
+        private final EnvVars environment;
+
+        public ExpandVariablesFunction(EnvVars environment) {
+            this.environment = new EnvVars(environment);
         }
 
         public String call(String value) {
-            try {
-                EnvVars environment = build.getEnvironment(listener);
-                return environment.expand(value);
-            } catch (IOException e) {
-                logger.println("Environment expand error: " + e);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            return value;
+            return environment.expand(value);
         }
     }
 }
-
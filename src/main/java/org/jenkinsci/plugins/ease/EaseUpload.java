@@ -3,10 +3,9 @@ package org.jenkinsci.plugins.ease;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.logging.Logger;
 import javax.servlet.ServletException;
@@ -48,10 +47,14 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
     private final boolean signApp;
     private final String credential;
     private final boolean enableApp;
+    private final boolean resumableUpload;
+    private final boolean forceRepublish;
+    private final String appIdRules;
 
     private FilePath filePath;
+    private Long fileSize;
+    private transient List<WorkspaceResolver.Match> fanOutMatches;
 
-    @DataBoundConstructor
     public EaseUpload(
             String prodEnv,
             String customEaseUrl,
@@ -66,6 +69,48 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
             boolean signApp,
             String credential,
             boolean enableApp) {
+        this(prodEnv, customEaseUrl, customApperianUrl, username, password, appId, filename,
+                author, version, versionNotes, signApp, credential, enableApp, false, false);
+    }
+
+    public EaseUpload(
+            String prodEnv,
+            String customEaseUrl,
+            String customApperianUrl,
+            String username,
+            String password,
+            String appId,
+            String filename,
+            String author,
+            String version,
+            String versionNotes,
+            boolean signApp,
+            String credential,
+            boolean enableApp,
+            boolean resumableUpload,
+            boolean forceRepublish) {
+        this(prodEnv, customEaseUrl, customApperianUrl, username, password, appId, filename,
+                author, version, versionNotes, signApp, credential, enableApp, resumableUpload, forceRepublish, null);
+    }
+
+    @DataBoundConstructor
+    public EaseUpload(
+            String prodEnv,
+            String customEaseUrl,
+            String customApperianUrl,
+            String username,
+            String password,
+            String appId,
+            String filename,
+            String author,
+            String version,
+            String versionNotes,
+            boolean signApp,
+            String credential,
+            boolean enableApp,
+            boolean resumableUpload,
+            boolean forceRepublish,
+            String appIdRules) {
         this.prodEnv = Utils.trim(prodEnv);
         this.customEaseUrl = Utils.trim(customEaseUrl);
         this.customApperianUrl = Utils.trim(customApperianUrl);
@@ -80,6 +125,9 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
         this.signApp = signApp;
         this.credential = credential;
         this.enableApp = enableApp;
+        this.resumableUpload = resumableUpload;
+        this.forceRepublish = forceRepublish;
+        this.appIdRules = Utils.isEmptyString(appIdRules) ? null : appIdRules.trim();
     }
 
     public static EaseUpload simpleUpload(
@@ -101,13 +149,15 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
                 null,
                 false,
                 null,
+                false,
+                false,
                 false);
     }
 
     public EaseUpload expand(Function1<String, String> expandVars) {
         return new EaseUpload(prodEnv,
-                              customEaseUrl,
-                              customApperianUrl,
+                              expandVars.call(customEaseUrl),
+                              expandVars.call(customApperianUrl),
                               expandVars.call(username),
                               password,
                               expandVars.call(appId),
@@ -116,8 +166,59 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
                               expandVars.call(version),
                               expandVars.call(versionNotes),
                               signApp,
-                              credential,
-                              enableApp);
+                              expandVars.call(credential),
+                              enableApp,
+                              resumableUpload,
+                              forceRepublish,
+                              appIdRules);
+    }
+
+    /**
+     * Copy publishing one of the files found in fan-out mode.
+     */
+    public EaseUpload forFile(FilePath file, long size, String appId) {
+        EaseUpload copy = new EaseUpload(prodEnv,
+                                         customEaseUrl,
+                                         customApperianUrl,
+                                         username,
+                                         password,
+                                         appId,
+                                         filename,
+                                         author,
+                                         version,
+                                         versionNotes,
+                                         signApp,
+                                         credential,
+                                         enableApp,
+                                         resumableUpload,
+                                         forceRepublish);
+        copy.filePath = file;
+        copy.fileSize = size;
+        return copy;
+    }
+
+    /**
+     * Copy to ship to an agent once controller has logged in.
+     */
+    public EaseUpload withoutPassword() {
+        EaseUpload copy = new EaseUpload(prodEnv,
+                                         customEaseUrl,
+                                         customApperianUrl,
+                                         username,
+                                         null,
+                                         appId,
+                                         filename,
+                                         author,
+                                         version,
+                                         versionNotes,
+                                         signApp,
+                                         credential,
+                                         enableApp,
+                                         resumableUpload,
+                                         forceRepublish);
+        copy.filePath = filePath;
+        copy.fileSize = fileSize;
+        return copy;
     }
 
     public String getProdEnv() {
@@ -136,10 +237,33 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
         return filePath;
     }
 
+    /**
+     * Size found by workspace search, -1 if not known.
+     */
+    public long getFileSize() {
+        return fileSize != null ? fileSize : -1;
+    }
+
     public String getAppId() {
         return appId;
     }
 
+    public String getAppIdRules() {
+        return appIdRules;
+    }
+
+    /**
+     * Whether files found are mapped to applications by {@link AppIdRules}
+     * instead of a single file published to appId.
+     */
+    public boolean isFanOut() {
+        return appIdRules != null;
+    }
+
+    List<WorkspaceResolver.Match> getFanOutMatches() {
+        return fanOutMatches;
+    }
+
     public String getFilename() {
         return filename;
     }
@@ -176,8 +300,16 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
         return enableApp;
     }
 
+    public boolean isResumableUpload() {
+        return resumableUpload;
+    }
+
+    public boolean isForceRepublish() {
+        return forceRepublish;
+    }
+
     public boolean checkOk() {
-        return !Utils.isEmptyString(appId) &&
+        return (!Utils.isEmptyString(appId) || isFanOut()) &&
                 validateHasAuthFields() &&
                 !Utils.isEmptyString(filename);
     }
@@ -186,15 +318,26 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
 
     public boolean searchWorkspace(FilePath workspacePath,
                                    PrintStream buildLog) throws IOException, InterruptedException {
-        String filename = getFilename();
-        FilePath[] paths = workspacePath.list(filename);
-        if (paths.length != 1) {
-            buildLog.println("Found " + (paths.length == 0 ? "no files" : " ambiguous list " + Arrays.asList(paths)) +
+        return WorkspaceResolver.searchWorkspace(workspacePath, Collections.singletonList(this), buildLog);
+    }
+
+    boolean resolve(FilePath workspacePath, List<WorkspaceResolver.Match> matches, PrintStream buildLog) {
+        if (isFanOut() && matches != null && !matches.isEmpty()) {
+            buildLog.println("Found " + matches.size() + " files for pattern '" + filename + "'");
+            this.fanOutMatches = matches;
+            return true;
+        }
+        if (matches == null || matches.size() != 1) {
+            buildLog.println("Found " + (matches == null || matches.isEmpty() ? "no files" : " ambiguous list " + matches) +
                     " as candidates for pattern '" + filename + "'");
             return false;
         }
 
-        this.filePath = paths[0];
+        WorkspaceResolver.Match match = matches.get(0);
+        this.filePath = workspacePath.child(match.getPath());
+        this.fileSize = match.getSize();
+        buildLog.println("Found '" + match.getPath() + "' for pattern '" + filename + "', " + match.getSize() +
+                " bytes, modified " + new Date(match.getLastModified()));
         return true;
     }
 
@@ -225,24 +368,32 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
     }
 
 
-    public EASEEndpoint createEaseEndpoint() {
+    public String getEaseUrl() {
         ProductionEnvironment productionEnvironment = ProductionEnvironment.fromNameOrNA(this.prodEnv);
         if (productionEnvironment == ProductionEnvironment.CUSTOM) {
-            return new EASEEndpoint(customEaseUrl);
+            return customEaseUrl;
         } else {
-            return new EASEEndpoint(productionEnvironment.easeUrl);
+            return productionEnvironment.easeUrl;
         }
     }
 
-    public ApperianEndpoint createApperianEndpoint() {
+    public String getApperianUrl() {
         ProductionEnvironment productionEnvironment = ProductionEnvironment.fromNameOrNA(this.prodEnv);
         if (productionEnvironment == ProductionEnvironment.CUSTOM) {
-            return new ApperianEndpoint(customApperianUrl);
+            return customApperianUrl;
         } else {
-            return new ApperianEndpoint(productionEnvironment.apperianUrl);
+            return productionEnvironment.apperianUrl;
         }
     }
 
+    public EASEEndpoint createEaseEndpoint() {
+        return new EASEEndpoint(getEaseUrl());
+    }
+
+    public ApperianEndpoint createApperianEndpoint() {
+        return new ApperianEndpoint(getApperianUrl());
+    }
+
     public ApperianEaseEndpoint createEndpoint() {
         return new ApperianEaseEndpoint(createEaseEndpoint(), createApperianEndpoint());
     }
@@ -294,6 +445,12 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
 
     @Extension
     public static final class DescriptorImpl extends Descriptor<EaseUpload> {
+        static final LookupCache<ApplicationListResponse.Application[]> APPLICATIONS =
+                new LookupCache<>("Applications");
+
+        static final LookupCache<List<SigningCredential>> CREDENTIALS =
+                new LookupCache<>("Signing credentials");
+
         @Override
         public String getDisplayName() {
             return "Apperian Upload";
@@ -318,27 +475,16 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
                 return new ListBoxModel().add("(credentials required)");
             }
 
-            StringBuilder errorMessage = new StringBuilder();
-            ApperianEaseEndpoint endpoint = upload.tryAuthenticate(true, false, errorMessage);
-            if (endpoint == null) {
-                return new ListBoxModel().add("(" + errorMessage + ")");
-            }
-
             try {
-                ApplicationListResponse response = ApperianEaseApi.PUBLISHING.list()
-                        .call(endpoint.getEaseEndpoint());
-
-                if (response.hasError()) {
-                    return new ListBoxModel().add("(" + response.getErrorMessage() + ")");
-                }
-
-                ApplicationListResponse.Application[] apps = response.result.applications;
+                ApplicationListResponse.Application[] apps = lookupApplications(upload);
                 ListBoxModel listItems = new ListBoxModel();
                 for (ApplicationListResponse.Application app : apps) {
                     listItems.add(app.name + " v:" + app.version + " type:" + app.type,
                             app.ID);
                 }
                 return listItems;
+            } catch (LookupCache.LookupException e) {
+                return new ListBoxModel().add("(" + e.getMessage() + ")");
             } catch (Exception e) {
                 logger.throwing(EaseRecorder.class.getName(), "doFillAppItems", e);
                 return new ListBoxModel().add("(error: " + e.getMessage() + ")");
@@ -357,50 +503,31 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
                 return new ListBoxModel().add("(credentials required)");
             }
 
-            boolean hasAppId = !Utils.isEmptyString(appId);
-
-            StringBuilder errorMessage = new StringBuilder();
-            ApperianEaseEndpoint endpoint = upload.tryAuthenticate(hasAppId, true, errorMessage);
-            if (endpoint == null) {
-                return new ListBoxModel().add("(" + errorMessage + ")");
-            }
-
-            try {
-                PlatformType typeFilter = null;
-                if (hasAppId) {
-                    ApplicationListResponse response = ApperianEaseApi.PUBLISHING.list()
-                            .call(endpoint.getEaseEndpoint());
-
-                    if (!response.hasError()) {
-                        for (ApplicationListResponse.Application application : response.result.applications) {
-                            if (appId.trim().equals(application.ID)) {
-                                if (Utils.isEmptyString(application.type)) {
-                                    continue;
-                                }
-                                if (application.type.contains("Android App")) {
-                                    typeFilter = PlatformType.ANDROID;
-                                } else if (application.type.contains("iOS App")) {
-                                    typeFilter = PlatformType.IOS;
-                                }
-                                break;
+            PlatformType typeFilter = null;
+            if (!Utils.isEmptyString(appId)) {
+                try {
+                    for (ApplicationListResponse.Application application : lookupApplications(upload)) {
+                        if (appId.trim().equals(application.ID)) {
+                            if (Utils.isEmptyString(application.type)) {
+                                continue;
+                            }
+                            if (application.type.contains("Android App")) {
+                                typeFilter = PlatformType.ANDROID;
+                            } else if (application.type.contains("iOS App")) {
+                                typeFilter = PlatformType.IOS;
                             }
+                            break;
                         }
                     }
+                } catch (IOException e) {
+                    // not filtered by platform then
                 }
+            }
 
-
-                ListAllSigningCredentialsResponse response;
-                response = ApperianEaseApi.SIGNING.listCredentials()
-                        .call(endpoint.getApperianEndpoint());
-
-                if (response.hasError()) {
-                    return new ListBoxModel().add("(" + response + ")");
-                }
-
+            try {
                 ListBoxModel listItems = new ListBoxModel();
-                DateFormat format = SimpleDateFormat.getDateInstance(DateFormat.SHORT);
 
-                for (SigningCredential credential : response.getCredentials()) {
+                for (SigningCredential credential : lookupCredentials(upload)) {
                     if (typeFilter != null) {
                         if (!typeFilter.equals(credential.getPlatform())) {
                             continue;
@@ -415,12 +542,84 @@ public class EaseUpload implements Describable<EaseUpload>, Serializable, Clonea
                 }
 
                 return listItems;
+            } catch (LookupCache.LookupException e) {
+                return new ListBoxModel().add("(" + e.getMessage() + ")");
             } catch (IOException e) {
                 return new ListBoxModel().add("(network required)");
             }
 
         }
 
+        public FormValidation doCheckAppIdRules(@QueryParameter String value) {
+            try {
+                AppIdRules.parse(value);
+                return FormValidation.ok();
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+        }
+
+        public FormValidation doRefreshLookups(@QueryParameter("prodEnv") final String prodEnv,
+                                               @QueryParameter("customApperianUrl") String customApperianUrl,
+                                               @QueryParameter("customEaseUrl") String customEaseUrl,
+                                               @QueryParameter("username") final String username,
+                                               @QueryParameter("password") final String password) {
+            EaseUpload upload = EaseUpload.simpleUpload(prodEnv, customApperianUrl, customEaseUrl, username, password);
+
+            String key = lookupKey(upload);
+            APPLICATIONS.invalidate(key);
+            CREDENTIALS.invalidate(key);
+            return FormValidation.ok("Applications and signing credentials will be reloaded from Apperian");
+        }
+
+        private static ApplicationListResponse.Application[] lookupApplications(final EaseUpload upload) throws IOException {
+            return APPLICATIONS.get(lookupKey(upload), new LookupCache.Loader<ApplicationListResponse.Application[]>() {
+                @Override
+                public ApplicationListResponse.Application[] load() throws IOException {
+                    StringBuilder errorMessage = new StringBuilder();
+                    ApperianEaseEndpoint endpoint = upload.tryAuthenticate(true, false, errorMessage);
+                    if (endpoint == null) {
+                        throw new LookupCache.LookupException(errorMessage.toString());
+                    }
+
+                    ApplicationListResponse response = ApperianEaseApi.PUBLISHING.list()
+                            .call(endpoint.getEaseEndpoint());
+
+                    if (response.hasError()) {
+                        throw new LookupCache.LookupException(response.getErrorMessage());
+                    }
+                    return response.result.applications;
+                }
+            });
+        }
+
+        private static List<SigningCredential> lookupCredentials(final EaseUpload upload) throws IOException {
+            return CREDENTIALS.get(lookupKey(upload), new LookupCache.Loader<List<SigningCredential>>() {
+                @Override
+                public List<SigningCredential> load() throws IOException {
+                    StringBuilder errorMessage = new StringBuilder();
+                    ApperianEaseEndpoint endpoint = upload.tryAuthenticate(false, true, errorMessage);
+                    if (endpoint == null) {
+                        throw new LookupCache.LookupException(errorMessage.toString());
+                    }
+
+                    ListAllSigningCredentialsResponse response;
+                    response = ApperianEaseApi.SIGNING.listCredentials()
+                            .call(endpoint.getApperianEndpoint());
+
+                    if (response.hasError()) {
+                        throw new LookupCache.LookupException(response.toString());
+                    }
+                    return response.getCredentials();
+                }
+            });
+        }
+
+        private static String lookupKey(EaseUpload upload) {
+            return upload.getEaseUrl() + " " + upload.getApperianUrl() + " " +
+                    Utils.trim(upload.getUsername()) + " " + SessionCache.fingerprint(upload.getPassword());
+        }
+
         public FormValidation doTestConnection(@QueryParameter("prodEnv") final String prodEnv,
                                                @QueryParameter("customApperianUrl") String customApperianUrl,
                                                @QueryParameter("customEaseUrl") String customEaseUrl,
@@ -0,0 +1,227 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Controller side cache for values shown in configuration forms.
+ * Fresh values (younger than TTL) are returned as is. Stale values
+ * (younger than TTL + max staleness) are returned too, while a reload
+ * runs in background. Older or missing values are loaded in place, with
+ * concurrent lookups of one key waiting for a single load.
+ */
+public class LookupCache<V> {
+    private static final Logger logger = Logger.getLogger(LookupCache.class.getName());
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(LookupCache.class.getName() + ".ttlMinutes", 5));
+
+    public static final long DEFAULT_MAX_STALE_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(LookupCache.class.getName() + ".maxStaleMinutes", 60));
+
+    private static final Executor REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "EASE lookup cache refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final String name;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, FutureTask<V>> loads = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    public LookupCache(String name) {
+        this(name, DEFAULT_TTL_MILLIS, DEFAULT_MAX_STALE_MILLIS, REFRESH_EXECUTOR);
+    }
+
+    public LookupCache(String name, long ttlMillis, long maxStaleMillis, Executor refreshExecutor) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public V get(String key, Loader<V> loader) throws IOException {
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            long age = System.currentTimeMillis() - entry.loadTime;
+            if (age < ttlMillis) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (age < ttlMillis + maxStaleMillis) {
+                staleHits.incrementAndGet();
+                refreshInBackground(key, loader);
+                return entry.value;
+            }
+            entries.remove(key, entry);
+        }
+
+        misses.incrementAndGet();
+        return load(key, loader);
+    }
+
+    public void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    private V load(final String key, final Loader<V> loader) throws IOException {
+        FutureTask<V> load = new FutureTask<>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                V value = loader.load();
+                putEntry(key, value);
+                return value;
+            }
+        });
+
+        FutureTask<V> running = loads.putIfAbsent(key, load);
+        if (running == null) {
+            running = load;
+            try {
+                load.run();
+            } finally {
+                loads.remove(key, load);
+            }
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while loading " + name + " lookup", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void putEntry(String key, V value) {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().loadTime >= ttlMillis + maxStaleMillis) {
+                it.remove();
+            }
+        }
+        entries.put(key, new Entry<>(value, now));
+    }
+
+    private void refreshInBackground(final String key, final Loader<V> loader) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        refreshExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load(key, loader);
+                } catch (Exception ex) {
+                    refreshFailures.incrementAndGet();
+                    logger.log(Level.FINE, "Failed to refresh " + name + " lookup", ex);
+                } finally {
+                    refreshing.remove(key);
+                }
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    /**
+     * Share of lookups served from cache, fresh or stale, in percent.
+     */
+    public int getHitRate() {
+        long served = hits.get() + staleHits.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (int) (served * 100 / total);
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getHitRate() + "% hit rate (" +
+                getHits() + " fresh, " + getStaleHits() + " stale, " + getMisses() + " misses, " +
+                getRefreshFailures() + " failed refreshes, " + size() + " entries)";
+    }
+
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    /**
+     * Lookup failure reported by the API, not cached.
+     */
+    public static class LookupException extends IOException {
+        public LookupException(String message) {
+            super(message);
+        }
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long loadTime;
+
+        Entry(V value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
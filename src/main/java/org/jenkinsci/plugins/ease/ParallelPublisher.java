@@ -0,0 +1,151 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import hudson.model.StreamBuildListener;
+
+/**
+ * Runs uploads of one build concurrently. Output of every upload is
+ * buffered and written to the build log as one block once it is finished.
+ */
+public class ParallelPublisher {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final UploadRunner runner;
+    private final ConcurrencyLimiter globalLimiter;
+    private final int maxConcurrency;
+    private final PrintStream buildLog;
+
+    public ParallelPublisher(UploadRunner runner,
+                             ConcurrencyLimiter globalLimiter,
+                             int maxConcurrency,
+                             PrintStream buildLog) {
+        this.runner = runner;
+        this.globalLimiter = globalLimiter;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.buildLog = buildLog;
+    }
+
+    public boolean publish(List<EaseUpload> uploads) throws InterruptedException {
+        int threads = Math.min(maxConcurrency, uploads.size());
+        buildLog.println("Publishing " + uploads.size() + " uploads, " + threads + " at a time");
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "EASE parallel upload #" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        List<Future<Outcome>> futures = new ArrayList<>(uploads.size());
+        List<Outcome> outcomes = new ArrayList<>(uploads.size());
+        try {
+            for (final EaseUpload upload : uploads) {
+                futures.add(executor.submit(new Callable<Outcome>() {
+                    @Override
+                    public Outcome call() throws Exception {
+                        return publishOne(upload);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                Outcome outcome;
+                try {
+                    outcome = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    outcome = new Outcome(uploads.get(i), false, 0, "General plugin problem: " + e.getCause());
+                }
+                printOutcome(i + 1, uploads.size(), outcome);
+                outcomes.add(outcome);
+            }
+        } catch (InterruptedException e) {
+            for (Future<Outcome> future : futures) {
+                future.cancel(true);
+            }
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return printSummary(outcomes);
+    }
+
+    private Outcome publishOne(EaseUpload upload) throws InterruptedException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        StreamBuildListener uploadListener = new StreamBuildListener(buffer, Charset.defaultCharset());
+        PrintStream uploadLog = uploadListener.getLogger();
+
+        boolean ok;
+        long start = System.currentTimeMillis();
+        globalLimiter.acquire();
+        try {
+            ok = runner.run(upload, uploadListener).isSuccess();
+        } catch (IOException e) {
+            uploadLog.println("Connectivity or IO problem");
+            e.printStackTrace(uploadLog);
+            ok = false;
+        } finally {
+            globalLimiter.release();
+        }
+        uploadLog.flush();
+
+        long duration = System.currentTimeMillis() - start;
+        return new Outcome(upload, ok, duration, new String(buffer.toByteArray(), Charset.defaultCharset()));
+    }
+
+    private void printOutcome(int index, int total, Outcome outcome) {
+        buildLog.println("==== Upload " + index + "/" + total + ": " + describe(outcome.upload) + " ====");
+        buildLog.print(outcome.log);
+        buildLog.println("==== " + (outcome.ok ? "OK" : "FAILED") +
+                " in " + TimeUnit.MILLISECONDS.toSeconds(outcome.durationMillis) + "s ====");
+    }
+
+    private boolean printSummary(List<Outcome> outcomes) {
+        List<String> failed = new ArrayList<>();
+        for (Outcome outcome : outcomes) {
+            if (!outcome.ok) {
+                failed.add(describe(outcome.upload));
+            }
+        }
+
+        int succeeded = outcomes.size() - failed.size();
+        buildLog.println("Apperian uploads finished: " + succeeded + " succeeded, " + failed.size() + " failed" +
+                (failed.isEmpty() ? "" : " " + failed));
+        return failed.isEmpty();
+    }
+
+    private static String describe(EaseUpload upload) {
+        String file = upload.getFilePath() != null ? upload.getFilePath().getName() : upload.getFilename();
+        return "'" + file + "' -> appId='" + upload.getAppId() + "'";
+    }
+
+    private static class Outcome {
+        final EaseUpload upload;
+        final boolean ok;
+        final long durationMillis;
+        final String log;
+
+        Outcome(EaseUpload upload, boolean ok, long durationMillis, String log) {
+            this.upload = upload;
+            this.ok = ok;
+            this.durationMillis = durationMillis;
+            this.log = log;
+        }
+    }
+}
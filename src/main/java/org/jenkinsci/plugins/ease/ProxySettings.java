@@ -0,0 +1,186 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.SocketAddress;
+
+import org.apache.http.HttpHost;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.ProxyAuthenticationStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+
+import hudson.ProxyConfiguration;
+import jenkins.model.Jenkins;
+
+/**
+ * Resolved proxy configuration. Value object, so it can be used as a key
+ * for shared http clients and shipped to agents.
+ */
+public final class ProxySettings implements Serializable {
+    public static final ProxySettings SYSTEM = new ProxySettings(true, null, 0, null, null);
+    public static final ProxySettings DIRECT = new ProxySettings(false, null, 0, null, null);
+
+    private final boolean useSystemProperties;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+
+    public ProxySettings(boolean useSystemProperties, String host, int port, String username, String password) {
+        this.useSystemProperties = useSystemProperties;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+    }
+
+    public static ProxySettings fromJenkins() {
+        ProxyConfiguration proxyConfig = null;
+        Jenkins jenkins = Jenkins.getInstance();
+        if (jenkins != null) {
+            proxyConfig = jenkins.proxy;
+        }
+        if (proxyConfig == null) {
+            return SYSTEM;
+        }
+
+        Proxy proxy = proxyConfig.createProxy(null);
+        if (proxy == null || proxy.type() != Proxy.Type.HTTP) {
+            return DIRECT;
+        }
+
+        SocketAddress addr = proxy.address();
+        if (addr == null || !(addr instanceof InetSocketAddress)) {
+            return DIRECT;
+        }
+
+        InetSocketAddress proxyAddr = (InetSocketAddress) addr;
+        return new ProxySettings(false,
+                                 proxyAddr.getHostString(),
+                                 proxyAddr.getPort(),
+                                 proxyConfig.getUserName(),
+                                 proxyConfig.getPassword());
+    }
+
+    public HttpClientBuilder configure(HttpClientBuilder builder) {
+        if (useSystemProperties) {
+            builder.useSystemProperties();
+            return builder;
+        }
+
+        if (host == null) {
+            return builder;
+        }
+
+        HttpHost proxyHost = new HttpHost(host, port);
+        builder.setProxy(proxyHost);
+
+        if (username == null) {
+            return builder;
+        }
+
+        CredentialsProvider cred = new BasicCredentialsProvider();
+        cred.setCredentials(new AuthScope(proxyHost),
+                            new UsernamePasswordCredentials(username, password));
+        builder
+                .setDefaultCredentialsProvider(cred)
+                .setProxyAuthenticationStrategy(new ProxyAuthenticationStrategy());
+
+        return builder;
+    }
+
+    public HttpAsyncClientBuilder configureAsync(HttpAsyncClientBuilder builder) {
+        if (useSystemProperties) {
+            builder.useSystemProperties();
+            return builder;
+        }
+
+        if (host == null) {
+            return builder;
+        }
+
+        HttpHost proxyHost = new HttpHost(host, port);
+        builder.setProxy(proxyHost);
+
+        if (username == null) {
+            return builder;
+        }
+
+        CredentialsProvider cred = new BasicCredentialsProvider();
+        cred.setCredentials(new AuthScope(proxyHost),
+                            new UsernamePasswordCredentials(username, password));
+        builder
+                .setDefaultCredentialsProvider(cred)
+                .setProxyAuthenticationStrategy(new ProxyAuthenticationStrategy());
+
+        return builder;
+    }
+
+    public boolean isUseSystemProperties() {
+        return useSystemProperties;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProxySettings)) {
+            return false;
+        }
+        ProxySettings that = (ProxySettings) o;
+        return useSystemProperties == that.useSystemProperties
+                && port == that.port
+                && equal(host, that.host)
+                && equal(username, that.username)
+                && equal(password, that.password);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = useSystemProperties ? 1 : 0;
+        result = 31 * result + (host != null ? host.hashCode() : 0);
+        result = 31 * result + port;
+        result = 31 * result + (username != null ? username.hashCode() : 0);
+        result = 31 * result + (password != null ? password.hashCode() : 0);
+        return result;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        if (useSystemProperties) {
+            return "ProxySettings{system}";
+        }
+        if (host == null) {
+            return "ProxySettings{direct}";
+        }
+        return "ProxySettings{" +
+                "host='" + host + '\'' +
+                ", port=" + port +
+                (username != null ? ", username='" + username + '\'' : "") +
+                '}';
+    }
+
+    private static final long serialVersionUID = 1L;
+}
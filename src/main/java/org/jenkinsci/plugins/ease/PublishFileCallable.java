@@ -7,118 +7,330 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 
 import org.jenkinsci.plugins.api.ApperianEaseEndpoint;
 
+import com.apperian.api.ApiMetrics;
 import com.apperian.api.ApperianEaseApi;
-import com.apperian.api.ApperianEndpoint;
-import com.apperian.api.ApperianResourceID;
+import com.apperian.api.AsyncCalls;
 import com.apperian.api.EASEEndpoint;
-import com.apperian.api.application.Application;
-import com.apperian.api.application.GetApplicationInfoResponse;
-import com.apperian.api.application.UpdateApplicationMetadataResponse;
+import com.apperian.api.UploadOffsetStore;
+import com.apperian.api.metadata.ArchiveIndex;
 import com.apperian.api.metadata.Metadata;
 import com.apperian.api.metadata.MetadataExtractor;
 import com.apperian.api.publishing.PublishApplicationResponse;
 import com.apperian.api.publishing.UpdateApplicationResponse;
 import com.apperian.api.publishing.UploadResult;
-import com.apperian.api.signing.SignApplicationResponse;
-import com.apperian.api.signing.SigningStatus;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import hudson.FilePath;
 import hudson.Util;
 import hudson.model.BuildListener;
 import hudson.remoting.VirtualChannel;
 
-public class PublishFileCallable implements FilePath.FileCallable<Boolean>, Serializable {
+import jenkins.model.Jenkins;
+
+public class PublishFileCallable implements FilePath.FileCallable<PublishResult>, Serializable {
     private final static Logger logger = Logger.getLogger(PublishFileCallable.class.getName());
 
     private EaseUpload upload;
     private final BuildListener listener;
+    private final PublishLedger.Entry lastPublished;
+    private final AgentSession session;
+    private final PublishTransactionLog journal;
+    private transient PublishTimings timings;
 
     public PublishFileCallable(EaseUpload upload, BuildListener listener) {
+        this(upload, listener, null);
+    }
+
+    public PublishFileCallable(EaseUpload upload, BuildListener listener, PublishLedger.Entry lastPublished) {
+        this(upload, listener, lastPublished, null);
+    }
+
+    /**
+     * @param session EASE session established on controller, if null
+     *                the callable logs in itself, which needs Jenkins
+     */
+    public PublishFileCallable(EaseUpload upload,
+                               BuildListener listener,
+                               PublishLedger.Entry lastPublished,
+                               AgentSession session) {
+        this(upload, listener, lastPublished, session, null);
+    }
+
+    /**
+     * @param journal where transaction phases are recorded, so an
+     *                interrupted publish can be resumed; may be null
+     */
+    public PublishFileCallable(EaseUpload upload,
+                               BuildListener listener,
+                               PublishLedger.Entry lastPublished,
+                               AgentSession session,
+                               PublishTransactionLog journal) {
         this.upload = upload;
         this.listener = listener;
+        this.lastPublished = lastPublished;
+        this.session = session;
+        this.journal = journal;
+    }
+
+    public PublishResult invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+        timings = new PublishTimings();
+        // on agent, API metrics are sent back to controller's registry
+        boolean onAgent = Jenkins.getInstance() == null;
+        if (onAgent) {
+            ApiMetrics.getInstance().startForwarding();
+        }
+        PublishResult result = publish(f).withTimings(timings);
+        return onAgent ? result.withMetrics(ApiMetrics.getInstance().drainForwarded()) : result;
     }
 
-    public Boolean invoke(File f, VirtualChannel channel) throws IOException, InterruptedException {
+    private PublishResult publish(File f) throws IOException, InterruptedException {
         if (!upload.validateHasAuthFields()) {
             report("Error: username/password are not set and there is no stored credentials found");
-            return false;
+            return PublishResult.failed(null);
         }
 
         if (!upload.checkOk()) {
             report("Error: all required upload parameters should be set: auth, appId and filename");
-            return false;
+            return PublishResult.failed(null);
         }
 
-        boolean shouldAuthApperian = upload.isEnableApp() || upload.isSignApp();
-
-        StringBuilder errorMessage = new StringBuilder();
-        ApperianEaseEndpoint endpoint = upload.tryAuthenticate(true,
-                                                               shouldAuthApperian,
-                                                               errorMessage);
+        String hash;
+        try (PublishTimings.Span span = timings.start(PublishTimings.HASH)) {
+            hash = Utils.sha256Hex(f);
+            span.setBytes(f.length());
+        }
+        report("Package %s sha256=%s", f.getName(), hash);
+
+        if (lastPublished != null && hash.equals(lastPublished.getHash())) {
+            if (upload.isForceRepublish()) {
+                report("Identical package was already published, republishing as forced");
+            } else {
+                report("Skipping upload: identical package was already published for appId=%s as version '%s' at %s, fileID=%s",
+                        lastPublished.getAppId(),
+                        lastPublished.getVersion(),
+                        Utils.formatIso8601(new Date(lastPublished.getPublishTime())),
+                        lastPublished.getFileID());
+                return PublishResult.skipped(lastPublished);
+            }
+        }
 
+        // signing and enabling are done on controller by UploadRunner
+        EASEEndpoint endpoint = authenticate();
         if (endpoint == null) {
-            report("Error: %s, endpoint=%s", errorMessage, upload.createEndpoint());
-            return false;
+            return PublishResult.failed(hash);
         }
 
-        try (EASEEndpoint easeEndpoint = endpoint.getEaseEndpoint()) {
-            if (!uploadApp(f, easeEndpoint)) {
-                return false;
+        PublishJournal.Transaction pending = findPending(hash);
+
+        PublishResult result;
+        try (EASEEndpoint easeEndpoint = endpoint) {
+            if (pending != null && pending.phase == PublishJournal.Phase.UPLOADED) {
+                report("Resuming interrupted publish: transaction %s, file already uploaded as %s",
+                        pending.transactionID, pending.fileID);
+                result = publishUploaded(pending, f, hash, easeEndpoint);
+            } else if (upload.isResumableUpload()) {
+                // chunked upload keeps its own blocking loop over offsets
+                result = uploadApp(f, hash, easeEndpoint, pending);
+            } else {
+                result = await(uploadAppAsync(f, hash, easeEndpoint));
             }
+        } catch (InterruptedException ex) {
+            throw ex;
         } catch (Exception ex) {
             logger.throwing("PublishFileCallable", "invoke", ex);
             report("General plugin problem : %s", ex);
             ex.printStackTrace(getLogger());
-            return false;
+            return PublishResult.failed(hash);
         }
 
-        ApperianEndpoint apperianEndpoint = endpoint.getApperianEndpoint();
+        return result;
+    }
 
-        try {
-            if (upload.isSignApp()) {
-                signApp(f, apperianEndpoint);
-            }
-        } catch (Exception ex) {
-            logger.throwing("PublishFileCallable", "invoke", ex);
-            report("Error signing application: %s", ex);
-            ex.printStackTrace(getLogger());
-            return false;
+    private EASEEndpoint authenticate() {
+        if (session != null) {
+            // file goes straight from this node to the upload url
+            return session.createEndpoint();
         }
 
-        try {
-            if (upload.isEnableApp()) {
-                enableApp(f, apperianEndpoint);
+        StringBuilder errorMessage = new StringBuilder();
+        ApperianEaseEndpoint endpoint;
+        try (PublishTimings.Span span = timings.start(PublishTimings.AUTH_EASE)) {
+            endpoint = upload.tryAuthenticate(true, false, errorMessage);
+        }
+
+        if (endpoint == null) {
+            report("Error: %s, endpoint=%s", errorMessage, upload.createEndpoint());
+            return null;
+        }
+        return endpoint.getEaseEndpoint();
+    }
+
+    /**
+     * @param pending transaction interrupted during upload, continued
+     *                from the offset server confirms; may be null
+     */
+    private PublishResult uploadApp(File applicationPackage,
+                                    String hash,
+                                    EASEEndpoint endpoint,
+                                    PublishJournal.Transaction pending) throws IOException {
+        PublishJournal.Transaction transaction = pending;
+        if (transaction != null) {
+            report("Resuming interrupted upload in transaction %s", transaction.transactionID);
+        } else {
+            UpdateApplicationResponse update;
+            try (PublishTimings.Span span = timings.start(PublishTimings.UPDATE)) {
+                update = ApperianEaseApi.PUBLISHING.update(upload.getAppId())
+                        .call(endpoint);
             }
-        } catch (Exception ex) {
-            logger.throwing("PublishFileCallable", "invoke", ex);
-            report("Error enabling application: %s", ex);
-            ex.printStackTrace(getLogger());
-            return false;
+
+            if (!checkUpdate(update)) {
+                return PublishResult.failed(hash);
+            }
+            transaction = begin(update, hash);
         }
 
-        return true;
+        report("Publishing %s to Apperian", applicationPackage);
+        UploadResult uploadResult;
+        try (PublishTimings.Span span = timings.start(PublishTimings.UPLOAD)) {
+            uploadResult = endpoint.uploadFileResumable(transaction.fileUploadURL,
+                                                        transaction.transactionID,
+                                                        applicationPackage,
+                                                        UploadOffsetStore.defaultStore());
+            span.setBytes(applicationPackage.length());
+        }
+        if (!checkUploaded(uploadResult)) {
+            // transaction may have expired, start over next time
+            journal(transaction.withPhase(PublishJournal.Phase.ABANDONED));
+            return PublishResult.failed(hash);
+        }
+        uploaded(transaction, uploadResult);
+
+        return publishUploaded(transaction, applicationPackage, hash, endpoint);
+    }
+
+    private PublishResult publishUploaded(PublishJournal.Transaction transaction,
+                                          File applicationPackage,
+                                          String hash,
+                                          EASEEndpoint endpoint) throws IOException {
+        Metadata metadataUpdate = buildMetadataUpdate(new Metadata(transaction.metadata));
+
+        PublishApplicationResponse publish;
+        try (PublishTimings.Span span = timings.start(PublishTimings.PUBLISH)) {
+            publish = ApperianEaseApi.PUBLISHING.publish(transaction.transactionID, metadataUpdate, transaction.fileID)
+                    .call(endpoint);
+        }
+        return toResult(publish, transaction, metadataUpdate, applicationPackage, endpoint);
     }
 
-    private boolean uploadApp(File applicationPackage,
-                              EASEEndpoint endpoint) throws IOException {
+    /**
+     * Update, upload and publish chained on the non-blocking client,
+     * no thread is held while requests are in flight. Stages write the
+     * journal and build log, so they run off the I/O dispatcher.
+     */
+    private ListenableFuture<PublishResult> uploadAppAsync(final File applicationPackage,
+                                                           final String hash,
+                                                           final EASEEndpoint endpoint) {
 
         String appId = upload.getAppId();
 
-        UpdateApplicationResponse update = ApperianEaseApi.PUBLISHING.update(appId)
-                .call(endpoint);
+        final PublishTimings.Span updateSpan = timings.start(PublishTimings.UPDATE);
+        return Futures.transform(ApperianEaseApi.PUBLISHING.update(appId).callAsync(endpoint),
+                                 new AsyncFunction<UpdateApplicationResponse, PublishResult>() {
+            @Override
+            public ListenableFuture<PublishResult> apply(UpdateApplicationResponse update) {
+                updateSpan.close();
+                if (!checkUpdate(update)) {
+                    return Futures.immediateFuture(PublishResult.failed(hash));
+                }
 
+                final PublishJournal.Transaction transaction = begin(update, hash);
+                final Metadata metadataUpdate = buildMetadataUpdate(new Metadata(transaction.metadata));
+
+                report("Publishing %s to Apperian", applicationPackage);
+                final PublishTimings.Span uploadSpan = timings.start(PublishTimings.UPLOAD)
+                                                              .setBytes(applicationPackage.length());
+                return Futures.transform(endpoint.uploadFileAsync(transaction.fileUploadURL, applicationPackage),
+                                         new AsyncFunction<UploadResult, PublishResult>() {
+                    @Override
+                    public ListenableFuture<PublishResult> apply(UploadResult uploadResult) {
+                        uploadSpan.close();
+                        if (!checkUploaded(uploadResult)) {
+                            journal(transaction.withPhase(PublishJournal.Phase.ABANDONED));
+                            return Futures.immediateFuture(PublishResult.failed(hash));
+                        }
+                        uploaded(transaction, uploadResult);
+
+                        final PublishTimings.Span publishSpan = timings.start(PublishTimings.PUBLISH);
+                        return Futures.transform(ApperianEaseApi.PUBLISHING.publish(transaction.transactionID, metadataUpdate, transaction.fileID)
+                                                                           .callAsync(endpoint),
+                                                 new Function<PublishApplicationResponse, PublishResult>() {
+                            @Override
+                            public PublishResult apply(PublishApplicationResponse publish) {
+                                publishSpan.close();
+                                return toResult(publish, transaction, metadataUpdate, applicationPackage, endpoint);
+                            }
+                        }, AsyncCalls.blockingStages());
+                    }
+                }, AsyncCalls.blockingStages());
+            }
+        }, AsyncCalls.blockingStages());
+    }
+
+    private PublishJournal.Transaction findPending(String hash) {
+        if (journal == null || upload.isForceRepublish()) {
+            return null;
+        }
+        try {
+            return journal.find(upload.getEaseUrl(), upload.getAppId(), hash);
+        } catch (RuntimeException ex) {
+            report("Could not read publish journal: %s", ex);
+            return null;
+        }
+    }
+
+    private PublishJournal.Transaction begin(UpdateApplicationResponse update, String hash) {
+        PublishJournal.Transaction transaction = new PublishJournal.Transaction(upload.getEaseUrl(), upload.getAppId(), hash);
+        transaction.transactionID = update.result.transactionID;
+        transaction.fileUploadURL = update.result.fileUploadURL;
+        transaction.metadata = new HashMap<>(update.result.EASEmetadata.getValues());
+        journal(transaction.withPhase(PublishJournal.Phase.UPDATED));
+        return transaction;
+    }
+
+    private void uploaded(PublishJournal.Transaction transaction, UploadResult uploadResult) {
+        transaction.fileID = uploadResult.fileID;
+        journal(transaction.withPhase(PublishJournal.Phase.UPLOADED));
+    }
+
+    private void journal(PublishJournal.Transaction transaction) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.record(transaction);
+        } catch (RuntimeException ex) {
+            report("Could not write publish journal: %s", ex);
+        }
+    }
+
+    private boolean checkUpdate(UpdateApplicationResponse update) {
         if (update.hasError()) {
             String errorMessage = update.getErrorMessage();
-            report("Error: %s, appId=%s", errorMessage, appId);
+            report("Error: %s, appId=%s", errorMessage, upload.getAppId());
             return false;
         }
+        return true;
+    }
 
-        Metadata metadata = update.result.EASEmetadata;
+    private Metadata buildMetadataUpdate(Metadata metadata) {
         report("Metadata from server: %s", metadata);
 
         Metadata metadataUpdate = new Metadata(new HashMap<String, String>());
@@ -146,9 +358,10 @@ public class PublishFileCallable implements FilePath.FileCallable<Boolean>, Seri
         }
 
         report("Metadata update: %s", metadataUpdate);
+        return metadataUpdate;
+    }
 
-        report("Publishing %s to Apperian", applicationPackage);
-        UploadResult uploadResult = endpoint.uploadFile(update.result.fileUploadURL, applicationPackage);
+    private boolean checkUploaded(UploadResult uploadResult) {
         if (uploadResult.hasError()) {
             report("Error: %s", uploadResult.errorMessage);
             return false;
@@ -158,23 +371,34 @@ public class PublishFileCallable implements FilePath.FileCallable<Boolean>, Seri
             report("Error: Upload file ID is null. Publish transaction not finished");
             return false;
         }
+        return true;
+    }
 
-
-        PublishApplicationResponse publish = ApperianEaseApi.PUBLISHING.publish(update.result.transactionID, metadataUpdate, uploadResult.fileID)
-                .call(endpoint);
+    private PublishResult toResult(PublishApplicationResponse publish,
+                                   PublishJournal.Transaction transaction,
+                                   Metadata metadataUpdate,
+                                   File applicationPackage,
+                                   EASEEndpoint endpoint) {
+        String hash = transaction.hash;
         if (publish.hasError()) {
             String errorMessage = publish.getErrorMessage();
             report(errorMessage);
-            return false;
+            journal(transaction.withPhase(PublishJournal.Phase.ABANDONED));
+            return PublishResult.failed(hash);
         }
 
+        String appId = upload.getAppId();
         if (!appId.equals(publish.result.appID)) {
             report("Error: File uploaded but confirmational appId is wrong");
-            return false;
+            journal(transaction.withPhase(PublishJournal.Phase.ABANDONED));
+            return PublishResult.failed(hash);
         }
+        journal(transaction.withPhase(PublishJournal.Phase.PUBLISHED));
 
         report("DONE! Uploaded %s to %s for appId=%s", applicationPackage.getName(), endpoint, appId);
-        return true;
+
+        String version = metadataUpdate.getVersion() != null ? metadataUpdate.getVersion() : new Metadata(transaction.metadata).getVersion();
+        return PublishResult.published(hash, transaction.fileID, version);
     }
 
     private void assignMetadata(Metadata metadata, Metadata metadataUpdate) {
@@ -185,104 +409,21 @@ public class PublishFileCallable implements FilePath.FileCallable<Boolean>, Seri
         }
     }
 
-    private void signApp(File applicationPackage,
-                         ApperianEndpoint apperianEndpoint) throws IOException {
-        report("Signing application with credential '%s'", upload.getCredential());
-        ApperianResourceID appId = new ApperianResourceID(upload.getAppId());
-        ApperianResourceID credentialId = new ApperianResourceID(upload.getCredential());
-
-
-        SignApplicationResponse response = ApperianEaseApi.SIGNING.signApplication(credentialId, appId)
-                                          .call(apperianEndpoint);
-
-        if (response.hasError()) {
-            throw new RuntimeException(response.getErrorMessage());
-        }
-
-        SigningStatus signingStatus = response.getStatus();
-        String details = response.getStatusDetails();
-
-        if (signingStatus == SigningStatus.IN_PROGRESS) {
-            report("The application is being signed. Doing polling of signing status.");
-        }
-
-        long interval = 5;
-        while (signingStatus == SigningStatus.IN_PROGRESS) {
-            try {
-                report("Sleeping " + interval + " seconds");
-                Thread.sleep(TimeUnit.SECONDS.toMillis(interval));
-
-                interval = interval + interval * 18 / 10;
-                if (interval > 30) {
-                    interval = 30;
-                }
-            } catch (InterruptedException e) {
-                break;
-            }
-
-            GetApplicationInfoResponse appInfoResponse;
-            appInfoResponse = ApperianEaseApi.APPLICATIONS.getApplicationInfo(appId)
-                                                          .call(apperianEndpoint);
-
-            if (appInfoResponse.hasError()) {
-                throw new RuntimeException(appInfoResponse.getErrorMessage());
-            }
-
-            Application application = appInfoResponse.getApplication();
-            if (application == null || application.getVersion() == null) {
-                throw new RuntimeException("Failed to get application " + appId + " signigng status");
-            }
-
-            signingStatus = application.getVersion().getStatus();
-            details = getStatusDetails(application);
-            report(details);
-        }
-    }
-
-    private String getStatusDetails(Application application) {
-        SigningStatus signingStatus = application.getVersion().getStatus();
-        String details = application.getVersion().getStatusDetails();
-
-        if (!Utils.isEmptyString(details)) {
-            return details;
-        }
-
-        switch (signingStatus) {
-            case SIGNED: return "The application was signed successfully.";
-            case CANCELLED: return "The signing request was cancelled.";
-            case ERROR: return "Some error happened while signing.";
-            case IN_PROGRESS: return "The application is being signed.";
-        }
-
-        return details;
-    }
-
-    private void enableApp(File applicationPackage,
-                           ApperianEndpoint apperianEndpoint) throws IOException {
-        report("Enabling application with ID '%s'", upload.getAppId());
-        ApperianResourceID appId = new ApperianResourceID(upload.getAppId());
-
-        UpdateApplicationMetadataResponse response;
-        response = ApperianEaseApi.APPLICATIONS.updateApplicationMetadata(appId)
-                .setEnabled(true)
-                .call(apperianEndpoint);
-
-        if (response.hasError()) {
-            throw new RuntimeException(response.getErrorMessage());
-        }
-    }
-
     private Metadata extractMetadataFromFile(File file) {
         report("Extracting from dist archive '%s'", file.getName());
 
         Metadata metadata = new Metadata(new HashMap<String, String>());
 
         boolean extracted = false;
-        for (MetadataExtractor extractor : MetadataExtractor.allExtractors(file)) {
-            if (extractor.extractTo(metadata, file, getLogger())) {
-                extracted = true;
-                break;
+        try (ArchiveIndex archive = new ArchiveIndex(file)) {
+            for (MetadataExtractor extractor : MetadataExtractor.extractorsFor(archive)) {
+                if (extractor.extractTo(metadata, archive, getLogger())) {
+                    extracted = true;
+                    break;
+                }
             }
+        } catch (IOException ex) {
+            report("Problem reading '%s': %s", file.getName(), ex);
         }
         if (!extracted) {
             report("Couldn't find metadata extractor for '%s'", file.getName());
@@ -291,10 +432,29 @@ public class PublishFileCallable implements FilePath.FileCallable<Boolean>, Seri
         return metadata;
     }
 
+    private static <T> T await(ListenableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw ex;
+        }
+    }
+
     public EaseUpload getUpload() {
         return upload;
     }
 
+    public AgentSession getSession() {
+        return session;
+    }
+
     public PrintStream getLogger() {
         return listener.getLogger();
     }
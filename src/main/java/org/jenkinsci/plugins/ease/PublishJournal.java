@@ -0,0 +1,252 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.apperian.api.ApiMappers;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import jenkins.model.Jenkins;
+
+/**
+ * Append-only journal of publish transactions in progress, one JSON line
+ * per phase change, kept in JENKINS_HOME. A publish interrupted after the
+ * file was uploaded is finished with the journaled fileID instead of
+ * uploading again; one interrupted during a resumable upload continues in
+ * the same transaction.
+ *
+ * The journal is compacted to the transactions still in progress when it
+ * grows past twice their number plus <code>compactSlack</code> (64) lines.
+ * Transactions older than <code>maxAgeHours</code> (24) are dropped.
+ * Both are system properties prefixed with the class name.
+ *
+ * Transactions are copied in and out, as on the controller the journal
+ * exported to agents is the same object its callers use.
+ */
+public class PublishJournal implements PublishTransactionLog {
+    private static final Logger logger = Logger.getLogger(PublishJournal.class.getName());
+
+    private static final String PROPERTY_PREFIX = PublishJournal.class.getName() + ".";
+
+    public static final int COMPACT_SLACK = Integer.getInteger(PROPERTY_PREFIX + "compactSlack", 64);
+    public static final long MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(
+            Long.getLong(PROPERTY_PREFIX + "maxAgeHours", 24));
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static PublishJournal instance;
+
+    private final File file;
+    private final long maxAgeMillis;
+    private final ObjectReader reader = ApiMappers.getInstance().readerFor(Transaction.class);
+    private final ObjectWriter writer = ApiMappers.getInstance().writerFor(Transaction.class);
+
+    private final Map<String, Transaction> pending = new LinkedHashMap<>();
+    private int lines;
+
+    public PublishJournal(File file, long maxAgeMillis) {
+        this.file = file;
+        this.maxAgeMillis = maxAgeMillis;
+        load();
+    }
+
+    public static synchronized PublishJournal get() {
+        if (instance == null) {
+            instance = new PublishJournal(new File(Jenkins.getInstance().getRootDir(), PublishJournal.class.getName() + ".log"),
+                                          MAX_AGE_MILLIS);
+        }
+        return instance;
+    }
+
+    @Override
+    public synchronized Transaction find(String easeUrl, String appId, String hash) {
+        Transaction transaction = pending.get(key(easeUrl, appId, hash));
+        if (transaction == null || isExpired(transaction, System.currentTimeMillis())) {
+            return null;
+        }
+        return new Transaction(transaction);
+    }
+
+    @Override
+    public synchronized void record(Transaction transaction) {
+        transaction.updatedAt = System.currentTimeMillis();
+        apply(transaction);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(writer.writeValueAsBytes(transaction));
+            out.write('\n');
+            out.getFD().sync();
+            lines++;
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to write publish journal " + file, ex);
+        }
+
+        if (lines > 2 * pending.size() + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    public synchronized List<Transaction> getPending() {
+        List<Transaction> result = new ArrayList<>(pending.size());
+        for (Transaction transaction : pending.values()) {
+            result.add(new Transaction(transaction));
+        }
+        return result;
+    }
+
+    synchronized int getLines() {
+        return lines;
+    }
+
+    /**
+     * Rewrites the journal with only the transactions still in progress.
+     */
+    synchronized void compact() {
+        dropExpired(System.currentTimeMillis());
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                for (Transaction transaction : pending.values()) {
+                    out.write(writer.writeValueAsBytes(transaction));
+                    out.write('\n');
+                }
+                out.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lines = pending.size();
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to compact publish journal " + file, ex);
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    Transaction transaction = reader.readValue(line);
+                    apply(transaction);
+                } catch (IOException ex) {
+                    // last line may be cut short by a crash
+                    logger.log(Level.FINE, "Skipping unreadable publish journal line: " + line, ex);
+                }
+            }
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to read publish journal " + file, ex);
+        }
+        dropExpired(System.currentTimeMillis());
+    }
+
+    private void apply(Transaction transaction) {
+        String key = key(transaction.easeUrl, transaction.appId, transaction.hash);
+        if (transaction.phase == Phase.PUBLISHED || transaction.phase == Phase.ABANDONED) {
+            pending.remove(key);
+        } else {
+            pending.put(key, new Transaction(transaction));
+        }
+    }
+
+    private void dropExpired(long now) {
+        for (Iterator<Transaction> it = pending.values().iterator(); it.hasNext(); ) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+            }
+        }
+    }
+
+    private boolean isExpired(Transaction transaction, long now) {
+        return now - transaction.startedAt > maxAgeMillis;
+    }
+
+    private static String key(String easeUrl, String appId, String hash) {
+        return easeUrl + " " + appId + " " + hash;
+    }
+
+    public enum Phase {
+        /** transaction opened, upload url known */
+        UPDATED,
+        /** file uploaded, fileID known */
+        UPLOADED,
+        PUBLISHED,
+        ABANDONED
+    }
+
+    public static class Transaction implements Serializable {
+        public String easeUrl;
+        public String appId;
+        public String hash;
+        public String transactionID;
+        public String fileUploadURL;
+        public String fileID;
+        public Phase phase;
+        public Map<String, String> metadata = new HashMap<>();
+        public long startedAt;
+        public long updatedAt;
+
+        public Transaction() {
+        }
+
+        public Transaction(String easeUrl, String appId, String hash) {
+            this.easeUrl = easeUrl;
+            this.appId = appId;
+            this.hash = hash;
+            this.startedAt = System.currentTimeMillis();
+        }
+
+        public Transaction(Transaction other) {
+            this.easeUrl = other.easeUrl;
+            this.appId = other.appId;
+            this.hash = other.hash;
+            this.transactionID = other.transactionID;
+            this.fileUploadURL = other.fileUploadURL;
+            this.fileID = other.fileID;
+            this.phase = other.phase;
+            this.metadata = other.metadata != null
+                    ? new HashMap<>(other.metadata)
+                    : new HashMap<String, String>();
+            this.startedAt = other.startedAt;
+            this.updatedAt = other.updatedAt;
+        }
+
+        public Transaction withPhase(Phase phase) {
+            this.phase = phase;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return "Transaction{" +
+                    "appId='" + appId + '\'' +
+                    ", transactionID='" + transactionID + '\'' +
+                    ", fileID='" + fileID + '\'' +
+                    ", phase=" + phase +
+                    '}';
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
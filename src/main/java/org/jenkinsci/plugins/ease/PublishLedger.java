@@ -0,0 +1,151 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.XmlFile;
+import jenkins.model.Jenkins;
+
+/**
+ * Content hashes of packages published per environment and appId.
+ * Stored on controller in JENKINS_HOME.
+ */
+public class PublishLedger {
+    private static final Logger logger = Logger.getLogger(PublishLedger.class.getName());
+
+    public static final int HISTORY_SIZE = 20;
+
+    private static PublishLedger instance;
+
+    private final Map<String, LinkedList<Entry>> entries = new HashMap<>();
+
+    private transient XmlFile file;
+
+    public static synchronized PublishLedger get() {
+        if (instance == null) {
+            XmlFile file = new XmlFile(Jenkins.XSTREAM,
+                                       new File(Jenkins.getInstance().getRootDir(), PublishLedger.class.getName() + ".xml"));
+            instance = load(file);
+        }
+        return instance;
+    }
+
+    static PublishLedger load(XmlFile file) {
+        PublishLedger ledger = null;
+        if (file.exists()) {
+            try {
+                ledger = (PublishLedger) file.read();
+            } catch (IOException ex) {
+                logger.log(Level.WARNING, "Failed to read publish ledger " + file, ex);
+            }
+        }
+        if (ledger == null) {
+            ledger = new PublishLedger();
+        }
+        ledger.file = file;
+        return ledger;
+    }
+
+    public synchronized Entry getLatest(String easeUrl, String appId) {
+        LinkedList<Entry> history = entries.get(key(easeUrl, appId));
+        if (history == null || history.isEmpty()) {
+            return null;
+        }
+        return history.getFirst();
+    }
+
+    public synchronized List<Entry> getHistory(String easeUrl, String appId) {
+        LinkedList<Entry> history = entries.get(key(easeUrl, appId));
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(history);
+    }
+
+    public synchronized void record(String easeUrl, Entry entry) {
+        String key = key(easeUrl, entry.getAppId());
+        LinkedList<Entry> history = entries.get(key);
+        if (history == null) {
+            history = new LinkedList<>();
+            entries.put(key, history);
+        }
+        history.addFirst(entry);
+        while (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+        save();
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.write(this);
+        } catch (IOException ex) {
+            logger.log(Level.WARNING, "Failed to save publish ledger " + file, ex);
+        }
+    }
+
+    private static String key(String easeUrl, String appId) {
+        return easeUrl + " " + appId;
+    }
+
+    public static class Entry implements Serializable {
+        private final String appId;
+        private final String hash;
+        private final String version;
+        private final String fileID;
+        private final long publishTime;
+
+        public Entry(String appId, String hash, String version, String fileID, long publishTime) {
+            this.appId = appId;
+            this.hash = hash;
+            this.version = version;
+            this.fileID = fileID;
+            this.publishTime = publishTime;
+        }
+
+        public String getAppId() {
+            return appId;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public String getFileID() {
+            return fileID;
+        }
+
+        public long getPublishTime() {
+            return publishTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                    "appId='" + appId + '\'' +
+                    ", hash='" + hash + '\'' +
+                    ", version='" + version + '\'' +
+                    ", fileID='" + fileID + '\'' +
+                    ", publishTime=" + publishTime +
+                    '}';
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.Serializable;
+
+import com.apperian.api.ApiMetrics;
+
+/**
+ * Outcome of {@link PublishFileCallable}, sent back from agent.
+ */
+public class PublishResult implements Serializable {
+    private final boolean success;
+    private final boolean skipped;
+    private final String hash;
+    private final String fileID;
+    private final String version;
+    private final PublishTimings timings;
+    private final ApiMetrics.Measurements metrics;
+
+    private PublishResult(boolean success, boolean skipped, String hash, String fileID, String version) {
+        this(success, skipped, hash, fileID, version, new PublishTimings(), null);
+    }
+
+    private PublishResult(boolean success, boolean skipped, String hash, String fileID, String version,
+                          PublishTimings timings, ApiMetrics.Measurements metrics) {
+        this.success = success;
+        this.skipped = skipped;
+        this.hash = hash;
+        this.fileID = fileID;
+        this.version = version;
+        this.timings = timings;
+        this.metrics = metrics;
+    }
+
+    public static PublishResult failed(String hash) {
+        return new PublishResult(false, false, hash, null, null);
+    }
+
+    public static PublishResult published(String hash, String fileID, String version) {
+        return new PublishResult(true, false, hash, fileID, version);
+    }
+
+    public static PublishResult skipped(PublishLedger.Entry entry) {
+        return new PublishResult(true, true, entry.getHash(), entry.getFileID(), entry.getVersion());
+    }
+
+    public PublishResult withTimings(PublishTimings timings) {
+        return new PublishResult(success, skipped, hash, fileID, version, timings, metrics);
+    }
+
+    /**
+     * @param metrics API measurements made on agent, for controller's {@link ApiMetrics}
+     */
+    public PublishResult withMetrics(ApiMetrics.Measurements metrics) {
+        return new PublishResult(success, skipped, hash, fileID, version, timings, metrics);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getFileID() {
+        return fileID;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public PublishTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * @return API measurements made on agent, null if published on controller
+     */
+    public ApiMetrics.Measurements getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishResult{" +
+                "success=" + success +
+                ", skipped=" + skipped +
+                ", hash='" + hash + '\'' +
+                ", fileID='" + fileID + '\'' +
+                ", version='" + version + '\'' +
+                '}';
+    }
+
+    private static final long serialVersionUID = 1L;
+}
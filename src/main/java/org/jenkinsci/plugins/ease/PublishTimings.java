@@ -0,0 +1,140 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Durations of the phases of one upload: authentication, hashing, API
+ * calls, transfer and signing. Spans are recorded on the agent and on the
+ * controller and merged into one list, in the order they finished.
+ */
+@ExportedBean(defaultVisibility = 3)
+public class PublishTimings implements Serializable {
+    public static final String AUTH_EASE = "auth ease";
+    public static final String AUTH_APPERIAN = "auth apperian";
+    public static final String QUEUE = "queue";
+    public static final String HASH = "hash";
+    public static final String UPDATE = "update";
+    public static final String UPLOAD = "upload";
+    public static final String PUBLISH = "publish";
+    public static final String SIGN = "sign";
+    public static final String ENABLE = "enable";
+
+    private final List<Span> spans = new ArrayList<>();
+
+    public Span start(String phase) {
+        return new Span(this, phase, System.currentTimeMillis());
+    }
+
+    public synchronized void add(Span span) {
+        spans.add(span);
+    }
+
+    public synchronized void addAll(PublishTimings other) {
+        if (other != null) {
+            spans.addAll(other.getSpans());
+        }
+    }
+
+    @Exported
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    @Exported
+    public synchronized long getTotalMillis() {
+        long total = 0;
+        for (Span span : spans) {
+            total += span.durationMillis;
+        }
+        return total;
+    }
+
+    public void printSummary(PrintStream log) {
+        List<Span> spans = getSpans();
+        if (spans.isEmpty()) {
+            return;
+        }
+        long total = getTotalMillis();
+
+        log.println(String.format("%-18s %10s %6s  %s", "Phase", "Time", "Share", "Throughput"));
+        for (Span span : spans) {
+            long share = total > 0 ? span.durationMillis * 100 / total : 0;
+            String throughput = span.bytes > 0
+                    ? String.format("%.1f KB/s (%d bytes)", span.getKilobytesPerSecond(), span.bytes)
+                    : "";
+            log.println(String.format("%-18s %9.3fs %5d%%  %s", span.phase, span.durationMillis / 1000.0, share, throughput));
+        }
+        log.println(String.format("%-18s %9.3fs", "total", total / 1000.0));
+    }
+
+    @ExportedBean(defaultVisibility = 4)
+    public static class Span implements AutoCloseable, Serializable {
+        private transient PublishTimings owner;
+        private final String phase;
+        private final long startTime;
+        private long durationMillis;
+        private long bytes;
+
+        Span(PublishTimings owner, String phase, long startTime) {
+            this.owner = owner;
+            this.phase = phase;
+            this.startTime = startTime;
+        }
+
+        public Span setBytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        /**
+         * Ends the span and records it, only the first call counts.
+         */
+        @Override
+        public void close() {
+            if (owner == null) {
+                return;
+            }
+            durationMillis = System.currentTimeMillis() - startTime;
+            owner.add(this);
+            owner = null;
+        }
+
+        @Exported
+        public String getPhase() {
+            return phase;
+        }
+
+        @Exported
+        public long getStartTime() {
+            return startTime;
+        }
+
+        @Exported
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Exported
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Exported
+        public double getKilobytesPerSecond() {
+            if (bytes <= 0 || durationMillis <= 0) {
+                return 0;
+            }
+            return bytes * 1000.0 / 1024 / durationMillis;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.Action;
+
+/**
+ * Phase timings of all uploads of a build, shown on a build page and
+ * available through remote API for graphing across builds.
+ */
+@ExportedBean
+public class PublishTimingsAction implements Action {
+    private final List<UploadTimings> uploads = new ArrayList<>();
+
+    public synchronized void add(String upload, boolean success, PublishTimings timings) {
+        uploads.add(new UploadTimings(upload, success, timings));
+    }
+
+    @Exported(inline = true)
+    public synchronized List<UploadTimings> getUploads() {
+        return new ArrayList<>(uploads);
+    }
+
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    public String getDisplayName() {
+        return "Apperian Upload Timings";
+    }
+
+    public String getUrlName() {
+        return "apperianTimings";
+    }
+
+    @ExportedBean(defaultVisibility = 2)
+    public static class UploadTimings {
+        private final String upload;
+        private final boolean success;
+        private final PublishTimings timings;
+
+        public UploadTimings(String upload, boolean success, PublishTimings timings) {
+            this.upload = upload;
+            this.success = success;
+            this.timings = timings;
+        }
+
+        @Exported
+        public String getUpload() {
+            return upload;
+        }
+
+        @Exported
+        public boolean isSuccess() {
+            return success;
+        }
+
+        @Exported
+        public PublishTimings getTimings() {
+            return timings;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.jenkinsci.plugins.ease;
+
+/**
+ * {@link PublishJournal} as seen from the agent running
+ * {@link PublishFileCallable}, exported over the remoting channel.
+ */
+public interface PublishTransactionLog {
+    /**
+     * @return transaction left unfinished for this package, or null
+     */
+    PublishJournal.Transaction find(String easeUrl, String appId, String hash);
+
+    void record(PublishJournal.Transaction transaction);
+}
@@ -0,0 +1,210 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.apperian.api.JsonHttpEndpoint;
+
+/**
+ * Caches session tokens per (endpoint url, username, password fingerprint).
+ * Concurrent logins for the same key are collapsed into a single API call.
+ */
+public class SessionCache {
+    private static final Logger logger = Logger.getLogger(SessionCache.class.getName());
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(SessionCache.class.getName() + ".ttlMinutes", 15));
+
+    private static final SessionCache INSTANCE = new SessionCache(DEFAULT_TTL_MILLIS);
+
+    private final ConcurrentMap<Key, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, FutureTask<LoginResult>> logins = new ConcurrentHashMap<>();
+    private volatile long ttlMillis;
+
+    public SessionCache(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public static SessionCache getInstance() {
+        return INSTANCE;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public boolean login(JsonHttpEndpoint endpoint, EaseUser user) {
+        Key key = new Key(endpoint, user);
+
+        Session session = sessions.get(key);
+        if (session != null && !session.isExpired()) {
+            endpoint.restoreSession(session.token);
+            endpoint.setSessionRenewal(new Renewal(user));
+            return true;
+        }
+
+        LoginResult result = singleFlightLogin(key, endpoint, user);
+        if (result.token == null) {
+            endpoint.setLastLoginError(result.error);
+            return false;
+        }
+
+        endpoint.restoreSession(result.token);
+        endpoint.setSessionRenewal(new Renewal(user));
+        return true;
+    }
+
+    public void invalidate(JsonHttpEndpoint endpoint, EaseUser user, String expiredToken) {
+        Key key = new Key(endpoint, user);
+        Session session = sessions.get(key);
+        if (session != null && (expiredToken == null || session.token.equals(expiredToken))) {
+            sessions.remove(key, session);
+        }
+    }
+
+    public void clear() {
+        sessions.clear();
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private LoginResult singleFlightLogin(final Key key,
+                                          final JsonHttpEndpoint endpoint,
+                                          final EaseUser user) {
+        FutureTask<LoginResult> login = new FutureTask<>(new Callable<LoginResult>() {
+            @Override
+            public LoginResult call() throws Exception {
+                if (!endpoint.tryLogin(user.getUsername(), user.getPassword())) {
+                    return new LoginResult(null, endpoint.getLastLoginError());
+                }
+                String token = endpoint.getSessionToken();
+                putSession(key, token);
+                return new LoginResult(token, null);
+            }
+        });
+
+        FutureTask<LoginResult> running = logins.putIfAbsent(key, login);
+        if (running == null) {
+            running = login;
+            try {
+                login.run();
+            } finally {
+                logins.remove(key, login);
+            }
+        } else {
+            logger.fine("Waiting for concurrent login to " + endpoint.getUrl());
+        }
+
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while logging in", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private void putSession(Key key, String token) {
+        long now = System.currentTimeMillis();
+        for (Iterator<Session> it = sessions.values().iterator(); it.hasNext(); ) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+            }
+        }
+        sessions.put(key, new Session(token, now + ttlMillis));
+    }
+
+    static String fingerprint(String password) {
+        if (password == null) {
+            return "";
+        }
+        return Utils.sha256Hex(password);
+    }
+
+    private class Renewal implements JsonHttpEndpoint.SessionRenewal {
+        private final EaseUser user;
+
+        Renewal(EaseUser user) {
+            this.user = user;
+        }
+
+        @Override
+        public boolean renewSession(JsonHttpEndpoint endpoint, String expiredToken) {
+            logger.fine("Session expired for " + endpoint.getUrl() + ", logging in again");
+            invalidate(endpoint, user, expiredToken);
+            return login(endpoint, user);
+        }
+    }
+
+    private static class Session {
+        final String token;
+        final long expiresAt;
+
+        Session(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return isExpired(System.currentTimeMillis());
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private static class LoginResult {
+        final String token;
+        final String error;
+
+        LoginResult(String token, String error) {
+            this.token = token;
+            this.error = error;
+        }
+    }
+
+    private static final class Key {
+        final String url;
+        final String username;
+        final String fingerprint;
+
+        Key(JsonHttpEndpoint endpoint, EaseUser user) {
+            this.url = endpoint.getUrl();
+            this.username = user.getUsername();
+            this.fingerprint = fingerprint(user.getPassword());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return url.equals(key.url)
+                    && username.equals(key.username)
+                    && fingerprint.equals(key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = url.hashCode();
+            result = 31 * result + username.hashCode();
+            result = 31 * result + fingerprint.hashCode();
+            return result;
+        }
+    }
+}
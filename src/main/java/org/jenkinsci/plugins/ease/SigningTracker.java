@@ -0,0 +1,386 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.apperian.api.ApperianEaseApi;
+import com.apperian.api.ApperianEndpoint;
+import com.apperian.api.ApperianResourceID;
+import com.apperian.api.application.Application;
+import com.apperian.api.application.GetApplicationInfoResponse;
+import com.apperian.api.signing.SigningStatus;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Controller side tracking of applications being signed. All in-flight
+ * signings are polled from one scheduler: every tick collects the signings
+ * due for a check, one status request is made per application however many
+ * builds wait for it, and waiting builds are woken through futures.
+ *
+ * Poll interval starts at <code>initialIntervalSeconds</code> (5), grows
+ * 1.8 times per poll up to <code>maxIntervalSeconds</code> (30) and is
+ * randomized by <code>jitterPercent</code> (20). Signing is given up after
+ * <code>timeoutMinutes</code> (60). All are system properties prefixed with
+ * the class name.
+ */
+public class SigningTracker {
+    private static final Logger logger = Logger.getLogger(SigningTracker.class.getName());
+
+    private static final String PROPERTY_PREFIX = SigningTracker.class.getName() + ".";
+
+    public static final long DEFAULT_INITIAL_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong(PROPERTY_PREFIX + "initialIntervalSeconds", 5));
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.getLong(PROPERTY_PREFIX + "maxIntervalSeconds", 30));
+    public static final int DEFAULT_JITTER_PERCENT = Integer.getInteger(PROPERTY_PREFIX + "jitterPercent", 20);
+    public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.getLong(PROPERTY_PREFIX + "timeoutMinutes", 60));
+
+    static final double BACKOFF_MULTIPLIER = 1.8;
+    static final long TICK_MILLIS = 1000;
+    static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static SigningTracker instance;
+
+    private final StatusSource statusSource;
+    private final long initialIntervalMillis;
+    private final long maxIntervalMillis;
+    private final int jitterPercent;
+    private final long timeoutMillis;
+    private final Random random = new Random();
+
+    private final Map<String, Signing> signings = new HashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService pollers;
+
+    public SigningTracker(StatusSource statusSource,
+                          long initialIntervalMillis,
+                          long maxIntervalMillis,
+                          int jitterPercent,
+                          long timeoutMillis) {
+        this.statusSource = statusSource;
+        this.initialIntervalMillis = initialIntervalMillis;
+        this.maxIntervalMillis = maxIntervalMillis;
+        this.jitterPercent = jitterPercent;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public static synchronized SigningTracker getInstance() {
+        if (instance == null) {
+            instance = new SigningTracker(new ApiStatusSource(),
+                                          DEFAULT_INITIAL_INTERVAL_MILLIS,
+                                          DEFAULT_MAX_INTERVAL_MILLIS,
+                                          DEFAULT_JITTER_PERCENT,
+                                          DEFAULT_TIMEOUT_MILLIS);
+        }
+        return instance;
+    }
+
+    /**
+     * Waits for signing of <code>appId</code> to leave {@link SigningStatus#IN_PROGRESS}.
+     * Status details are reported to <code>log</code> on every check.
+     */
+    public synchronized ListenableFuture<Status> track(ApperianEndpoint endpoint,
+                                                       ApperianResourceID appId,
+                                                       PrintStream log) {
+        String key = endpoint.getUrl() + " " + appId;
+        Signing signing = signings.get(key);
+        if (signing == null) {
+            long now = System.currentTimeMillis();
+            signing = new Signing(endpoint, appId, now + timeoutMillis);
+            signing.intervalMillis = initialIntervalMillis;
+            signing.nextPollAt = now + withJitter(initialIntervalMillis);
+            signings.put(key, signing);
+        }
+
+        SettableFuture<Status> future = SettableFuture.create();
+        signing.waiters.add(new Waiter(future, log));
+        startScheduler();
+        return future;
+    }
+
+    public synchronized int getInFlight() {
+        return signings.size();
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            pollers.shutdownNow();
+            scheduler = null;
+            pollers = null;
+        }
+    }
+
+    private void startScheduler() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("EASE signing tracker"));
+        pollers = Executors.newCachedThreadPool(daemonThreads("EASE signing status poll"));
+        scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dispatch(tick(System.currentTimeMillis()));
+                } catch (RuntimeException ex) {
+                    logger.log(Level.WARNING, "Signing tracker tick failed", ex);
+                }
+            }
+        }, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Drops abandoned and timed out signings and returns those due for a check.
+     * Waiters are failed outside the lock, as listeners of their futures
+     * may write build logs and state files.
+     */
+    List<Signing> tick(long now) {
+        List<Signing> due = new ArrayList<>();
+        List<Signing> timedOut = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<Signing> it = signings.values().iterator(); it.hasNext(); ) {
+                Signing signing = it.next();
+                signing.dropCancelledWaiters();
+                if (signing.waiters.isEmpty()) {
+                    it.remove();
+                } else if (now >= signing.deadline) {
+                    it.remove();
+                    timedOut.add(signing);
+                } else if (!signing.polling && now >= signing.nextPollAt) {
+                    signing.polling = true;
+                    due.add(signing);
+                }
+            }
+        }
+        // removed signings get no more waiters
+        for (Signing signing : timedOut) {
+            fail(signing.waiters, new TimeoutException("Signing of application " + signing.appId + " did not finish in " +
+                    TimeUnit.MILLISECONDS.toMinutes(timeoutMillis) + " minutes"));
+        }
+        return due;
+    }
+
+    private void dispatch(List<Signing> due) {
+        for (final Signing signing : due) {
+            pollers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    poll(signing);
+                }
+            });
+        }
+    }
+
+    void poll(Signing signing) {
+        Status status = null;
+        Exception failure = null;
+        try {
+            status = statusSource.getStatus(signing.endpoint, signing.appId);
+        } catch (Exception ex) {
+            failure = ex;
+        }
+
+        List<Waiter> waiters;
+        String message = null;
+        boolean done = false;
+        synchronized (this) {
+            signing.polling = false;
+            waiters = new ArrayList<>(signing.waiters);
+
+            if (failure != null) {
+                signing.failures++;
+                if (signing.failures >= MAX_CONSECUTIVE_FAILURES) {
+                    signings.values().remove(signing);
+                    done = true;
+                } else {
+                    message = "Failed to get signing status: " + failure;
+                }
+            } else {
+                signing.failures = 0;
+                message = status.getDetails();
+                if (status.getStatus() != SigningStatus.IN_PROGRESS) {
+                    signings.values().remove(signing);
+                    done = true;
+                }
+            }
+
+            if (!done) {
+                signing.intervalMillis = Math.min(maxIntervalMillis, (long) (signing.intervalMillis * BACKOFF_MULTIPLIER));
+                signing.nextPollAt = System.currentTimeMillis() + withJitter(signing.intervalMillis);
+            }
+        }
+
+        // outside the lock: logs are remote streams and listeners of
+        // the futures may block
+        if (message != null) {
+            report(waiters, message);
+        }
+        if (done) {
+            if (failure != null) {
+                fail(waiters, failure);
+            } else {
+                complete(waiters, status);
+            }
+        }
+    }
+
+    private static void report(List<Waiter> waiters, String message) {
+        for (Waiter waiter : waiters) {
+            if (waiter.log != null) {
+                waiter.log.println(message);
+            }
+        }
+    }
+
+    private static void complete(List<Waiter> waiters, Status status) {
+        for (Waiter waiter : waiters) {
+            waiter.future.set(status);
+        }
+    }
+
+    private static void fail(List<Waiter> waiters, Throwable cause) {
+        for (Waiter waiter : waiters) {
+            waiter.future.setException(cause);
+        }
+    }
+
+    private long withJitter(long intervalMillis) {
+        if (jitterPercent <= 0) {
+            return intervalMillis;
+        }
+        long spread = intervalMillis * jitterPercent / 100;
+        return intervalMillis - spread + (long) (random.nextDouble() * 2 * spread);
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name + " #" + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    public static String describe(SigningStatus signingStatus, String details) {
+        if (!Utils.isEmptyString(details)) {
+            return details;
+        }
+
+        if (signingStatus != null) {
+            switch (signingStatus) {
+                case SIGNED: return "The application was signed successfully.";
+                case CANCELLED: return "The signing request was cancelled.";
+                case ERROR: return "Some error happened while signing.";
+                case IN_PROGRESS: return "The application is being signed.";
+            }
+        }
+
+        return details;
+    }
+
+    public interface StatusSource {
+        Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) throws IOException;
+    }
+
+    static class ApiStatusSource implements StatusSource {
+        @Override
+        public Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) throws IOException {
+            GetApplicationInfoResponse appInfoResponse;
+            appInfoResponse = ApperianEaseApi.APPLICATIONS.getApplicationInfo(appId)
+                                                          .call(endpoint);
+
+            if (appInfoResponse.hasError()) {
+                throw new IOException(appInfoResponse.getErrorMessage());
+            }
+
+            Application application = appInfoResponse.getApplication();
+            if (application == null || application.getVersion() == null) {
+                throw new IOException("Failed to get application " + appId + " signing status");
+            }
+
+            SigningStatus signingStatus = application.getVersion().getStatus();
+            return new Status(signingStatus, describe(signingStatus, application.getVersion().getStatusDetails()));
+        }
+    }
+
+    public static class Status {
+        private final SigningStatus status;
+        private final String details;
+
+        public Status(SigningStatus status, String details) {
+            this.status = status;
+            this.details = details;
+        }
+
+        public SigningStatus getStatus() {
+            return status;
+        }
+
+        public String getDetails() {
+            return details;
+        }
+
+        @Override
+        public String toString() {
+            return status + ": " + details;
+        }
+    }
+
+    static class Signing {
+        final ApperianEndpoint endpoint;
+        final ApperianResourceID appId;
+        final long deadline;
+        final List<Waiter> waiters = new ArrayList<>();
+
+        long intervalMillis;
+        long nextPollAt;
+        boolean polling;
+        int failures;
+
+        Signing(ApperianEndpoint endpoint, ApperianResourceID appId, long deadline) {
+            this.endpoint = endpoint;
+            this.appId = appId;
+            this.deadline = deadline;
+        }
+
+        void dropCancelledWaiters() {
+            for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+                if (it.next().future.isCancelled()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private static class Waiter {
+        final SettableFuture<Status> future;
+        final PrintStream log;
+
+        Waiter(SettableFuture<Status> future, PrintStream log) {
+            this.future = future;
+            this.log = log;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jenkinsci.plugins.api.ApperianEaseEndpoint;
+
+import com.apperian.api.ApiMetrics;
+import com.apperian.api.ApperianEaseApi;
+import com.apperian.api.ApperianEndpoint;
+import com.apperian.api.ApperianResourceID;
+import com.apperian.api.application.UpdateApplicationMetadataResponse;
+import com.apperian.api.signing.SignApplicationResponse;
+import com.apperian.api.signing.SigningStatus;
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import hudson.model.BuildListener;
+
+/**
+ * Controller side of a single upload: runs {@link PublishFileCallable}
+ * on the node holding the file, then signs and enables the application
+ * and records the outcome. EASE login happens here and only the session
+ * token goes to the agent, which streams the file to the upload url
+ * itself. Signing is awaited through {@link SigningTracker},
+ * so no agent executor is held while it is in progress; API calls go
+ * through the non-blocking client. Concurrent uploads with the same
+ * account share one EASE login through {@link SessionCache}.
+ */
+public class UploadRunner {
+    private final PublishLedger ledger;
+    private final SigningTracker signingTracker;
+    private final UploadScheduler scheduler;
+    private final String owner;
+    private final PublishTimingsAction timingsAction;
+    private final PublishJournal journal;
+
+    public UploadRunner(PublishLedger ledger) {
+        this(ledger, SigningTracker.getInstance());
+    }
+
+    public UploadRunner(PublishLedger ledger, SigningTracker signingTracker) {
+        this(ledger, signingTracker, null, null);
+    }
+
+    /**
+     * @param scheduler queue uploads go through, may be null
+     * @param owner job on whose behalf uploads are made, used for fair share
+     */
+    public UploadRunner(PublishLedger ledger, SigningTracker signingTracker, UploadScheduler scheduler, String owner) {
+        this(ledger, signingTracker, scheduler, owner, null);
+    }
+
+    /**
+     * @param timingsAction build action phase timings of every upload are added to, may be null
+     */
+    public UploadRunner(PublishLedger ledger,
+                        SigningTracker signingTracker,
+                        UploadScheduler scheduler,
+                        String owner,
+                        PublishTimingsAction timingsAction) {
+        this(ledger, signingTracker, scheduler, owner, timingsAction, PublishJournal.get());
+    }
+
+    /**
+     * @param journal transactions in progress, exported to agents; may be null
+     */
+    public UploadRunner(PublishLedger ledger,
+                        SigningTracker signingTracker,
+                        UploadScheduler scheduler,
+                        String owner,
+                        PublishTimingsAction timingsAction,
+                        PublishJournal journal) {
+        this.ledger = ledger;
+        this.signingTracker = signingTracker;
+        this.scheduler = scheduler;
+        this.owner = owner;
+        this.timingsAction = timingsAction;
+        this.journal = journal;
+    }
+
+    public PublishResult run(EaseUpload upload, BuildListener listener) throws IOException, InterruptedException {
+        PublishTimings timings = new PublishTimings();
+        PublishResult result = null;
+        try {
+            result = publish(upload, listener, timings);
+            return result.withTimings(timings);
+        } finally {
+            timings.printSummary(listener.getLogger());
+            if (timingsAction != null) {
+                String file = upload.getFilePath() != null ? upload.getFilePath().getName() : upload.getFilename();
+                timingsAction.add(file + " -> " + upload.getAppId(), result != null && result.isSuccess(), timings);
+            }
+        }
+    }
+
+    private PublishResult publish(EaseUpload upload,
+                                  BuildListener listener,
+                                  PublishTimings timings) throws IOException, InterruptedException {
+        PublishResult result = upload(upload, listener, timings);
+        if (!result.isSuccess() || result.isSkipped()) {
+            return result;
+        }
+
+        if (!postPublish(upload, listener.getLogger(), timings)) {
+            return PublishResult.failed(result.getHash());
+        }
+
+        record(upload, result);
+        return result;
+    }
+
+    /**
+     * Publishes the file from the node holding it, without signing and enabling.
+     */
+    public PublishResult upload(EaseUpload upload,
+                                BuildListener listener,
+                                PublishTimings timings) throws IOException, InterruptedException {
+        String easeUrl = upload.getEaseUrl();
+        PublishLedger.Entry lastPublished = ledger.getLatest(easeUrl, upload.getAppId());
+
+        AgentSession session = null;
+        if (upload.checkOk()) {
+            try (PublishTimings.Span span = timings.start(PublishTimings.AUTH_EASE)) {
+                session = login(upload, listener.getLogger());
+            }
+            if (session == null) {
+                return PublishResult.failed(null);
+            }
+        }
+
+        // agent gets the session instead of the password and stored credentials
+        PublishTransactionLog journalLog = null;
+        if (journal != null) {
+            // agent records transaction phases on controller as they happen
+            journalLog = upload.getFilePath().getChannel().export(PublishTransactionLog.class, journal);
+        }
+        PublishFileCallable callable = new PublishFileCallable(upload.withoutPassword(), listener, lastPublished,
+                                                               session, journalLog);
+        PublishResult result;
+        if (scheduler == null) {
+            result = upload.getFilePath().act(callable);
+        } else {
+            UploadScheduler.Permit permit;
+            try (PublishTimings.Span span = timings.start(PublishTimings.QUEUE)) {
+                long size = upload.getFileSize() >= 0 ? upload.getFileSize() : upload.getFilePath().length();
+                permit = scheduler.acquire(easeUrl, owner, size, listener.getLogger());
+            }
+            try {
+                result = upload.getFilePath().act(callable);
+            } finally {
+                permit.release();
+            }
+        }
+        timings.addAll(result.getTimings());
+        ApiMetrics.getInstance().record(result.getMetrics());
+        return result;
+    }
+
+    public void record(EaseUpload upload, PublishResult result) {
+        ledger.record(upload.getEaseUrl(), new PublishLedger.Entry(upload.getAppId(),
+                                                                   result.getHash(),
+                                                                   result.getVersion(),
+                                                                   result.getFileID(),
+                                                                   System.currentTimeMillis()));
+    }
+
+    /**
+     * Logs in to EASE on controller, where stored credentials and
+     * proxy configuration are available.
+     */
+    private AgentSession login(EaseUpload upload, PrintStream log) {
+        StringBuilder errorMessage = new StringBuilder();
+        ApperianEaseEndpoint endpoint = upload.tryAuthenticate(true, false, errorMessage);
+        if (endpoint == null) {
+            log.println("Error: " + errorMessage + ", endpoint=" + upload.createEndpoint());
+            return null;
+        }
+        return AgentSession.of(endpoint.getEaseEndpoint());
+    }
+
+    /**
+     * @return endpoint to sign and enable with, null if login failed
+     */
+    public ApperianEndpoint loginApperian(EaseUpload upload, PrintStream log) {
+        StringBuilder errorMessage = new StringBuilder();
+        ApperianEaseEndpoint endpoint = upload.tryAuthenticate(false, true, errorMessage);
+        if (endpoint == null) {
+            log.println("Error: " + errorMessage + ", endpoint=" + upload.createEndpoint());
+            return null;
+        }
+        return endpoint.getApperianEndpoint();
+    }
+
+    private boolean postPublish(EaseUpload upload, PrintStream log, PublishTimings timings) throws InterruptedException {
+        if (!upload.isSignApp() && !upload.isEnableApp()) {
+            return true;
+        }
+
+        ApperianEndpoint apperianEndpoint;
+        try (PublishTimings.Span span = timings.start(PublishTimings.AUTH_APPERIAN)) {
+            apperianEndpoint = loginApperian(upload, log);
+        }
+        if (apperianEndpoint == null) {
+            return false;
+        }
+
+        try {
+            if (upload.isSignApp()) {
+                try (PublishTimings.Span span = timings.start(PublishTimings.SIGN)) {
+                    await(signAppAsync(upload, apperianEndpoint, log));
+                }
+            }
+        } catch (Exception ex) {
+            log.println("Error signing application: " + ex);
+            ex.printStackTrace(log);
+            return false;
+        }
+
+        try {
+            if (upload.isEnableApp()) {
+                try (PublishTimings.Span span = timings.start(PublishTimings.ENABLE)) {
+                    await(enableAppAsync(upload, apperianEndpoint, log));
+                }
+            }
+        } catch (Exception ex) {
+            log.println("Error enabling application: " + ex);
+            ex.printStackTrace(log);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Requests signing and completes when it leaves {@link SigningStatus#IN_PROGRESS},
+     * without holding a thread while waiting.
+     */
+    public ListenableFuture<SigningTracker.Status> signAppAsync(EaseUpload upload,
+                                                                ApperianEndpoint apperianEndpoint,
+                                                                PrintStream log) {
+        return signAppAsync(upload, apperianEndpoint, log, null);
+    }
+
+    /**
+     * @param accepted run once server has started signing, may be null
+     */
+    public ListenableFuture<SigningTracker.Status> signAppAsync(final EaseUpload upload,
+                                                                final ApperianEndpoint apperianEndpoint,
+                                                                final PrintStream log,
+                                                                final Runnable accepted) {
+        log.println("Signing application with credential '" + upload.getCredential() + "'");
+        final ApperianResourceID appId = new ApperianResourceID(upload.getAppId());
+        ApperianResourceID credentialId = new ApperianResourceID(upload.getCredential());
+
+        return Futures.transform(
+                ApperianEaseApi.SIGNING.signApplication(credentialId, appId).callAsync(apperianEndpoint),
+                new AsyncFunction<SignApplicationResponse, SigningTracker.Status>() {
+            @Override
+            public ListenableFuture<SigningTracker.Status> apply(SignApplicationResponse response) {
+                if (response.hasError()) {
+                    throw new RuntimeException(response.getErrorMessage());
+                }
+
+                if (response.getStatus() != SigningStatus.IN_PROGRESS) {
+                    String details = SigningTracker.describe(response.getStatus(), response.getStatusDetails());
+                    log.println(details);
+                    return Futures.immediateFuture(new SigningTracker.Status(response.getStatus(), details));
+                }
+
+                if (accepted != null) {
+                    accepted.run();
+                }
+                return awaitSigningAsync(upload, apperianEndpoint, log);
+            }
+        });
+    }
+
+    /**
+     * Waits for signing requested earlier, e.g. before a restart.
+     */
+    public ListenableFuture<SigningTracker.Status> awaitSigningAsync(EaseUpload upload,
+                                                                     ApperianEndpoint apperianEndpoint,
+                                                                     PrintStream log) {
+        log.println("The application is being signed. Waiting for signing status.");
+        return signingTracker.track(apperianEndpoint, new ApperianResourceID(upload.getAppId()), log);
+    }
+
+    public ListenableFuture<UpdateApplicationMetadataResponse> enableAppAsync(EaseUpload upload,
+                                                                             ApperianEndpoint apperianEndpoint,
+                                                                             PrintStream log) {
+        log.println("Enabling application with ID '" + upload.getAppId() + "'");
+        ApperianResourceID appId = new ApperianResourceID(upload.getAppId());
+
+        return Futures.transform(
+                ApperianEaseApi.APPLICATIONS.updateApplicationMetadata(appId)
+                        .setEnabled(true)
+                        .callAsync(apperianEndpoint),
+                new Function<UpdateApplicationMetadataResponse, UpdateApplicationMetadataResponse>() {
+            @Override
+            public UpdateApplicationMetadataResponse apply(UpdateApplicationMetadataResponse response) {
+                if (response.hasError()) {
+                    throw new RuntimeException(response.getErrorMessage());
+                }
+                return response;
+            }
+        });
+    }
+
+    private static <T> T await(Future<T> future) throws InterruptedException, ExecutionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            throw e;
+        }
+    }
+}
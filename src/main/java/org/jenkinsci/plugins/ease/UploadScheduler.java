@@ -0,0 +1,230 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller wide queue of uploads. Every EASE url (production environment
+ * or custom) is a separate lane with its own limit of concurrent uploads
+ * and of bytes per second. Within a lane slots are handed out round robin
+ * over jobs, so one job queueing many uploads doesn't starve others.
+ *
+ * Bandwidth is enforced on admission: an upload of N bytes postpones the
+ * next admission in its lane by N / bytesPerSecond.
+ */
+public class UploadScheduler {
+    private int maxConcurrent;
+    private long bytesPerSecond;
+
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    public UploadScheduler(int maxConcurrent, long bytesPerSecond) {
+        setLimits(maxConcurrent, bytesPerSecond);
+    }
+
+    /**
+     * @param bytesPerSecond aggregate rate per lane, 0 for unlimited
+     */
+    public synchronized void setLimits(int maxConcurrent, long bytesPerSecond) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.bytesPerSecond = Math.max(0, bytesPerSecond);
+        notifyAll();
+    }
+
+    public synchronized int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Blocks until an upload of <code>bytes</code> by <code>owner</code>
+     * may start in <code>laneKey</code>. Queue position and wait time
+     * are reported to <code>log</code>.
+     */
+    public Permit acquire(String laneKey, String owner, long bytes, PrintStream log) throws InterruptedException {
+        long start = System.nanoTime();
+        Ticket ticket;
+        int queuedAhead;
+        String waiting = null;
+        synchronized (this) {
+            ticket = enqueue(laneKey, owner, bytes);
+            queuedAhead = ticket.lane.queued() - 1;
+            if (admissionDelay(ticket, start) != 0) {
+                waiting = "Waiting for upload slot to " + laneKey + ": " + queuedAhead + " queued ahead, " +
+                        ticket.lane.active + "/" + maxConcurrent + " uploading";
+            }
+        }
+        // build log may be a remote stream, not written under the shared lock
+        if (waiting != null) {
+            log.println(waiting);
+        }
+
+        synchronized (this) {
+            try {
+                while (true) {
+                    long delay = admissionDelay(ticket, System.nanoTime());
+                    if (delay == 0) {
+                        break;
+                    }
+                    if (delay < 0) {
+                        wait();
+                    } else {
+                        TimeUnit.NANOSECONDS.timedWait(this, delay);
+                    }
+                }
+            } catch (InterruptedException e) {
+                cancel(ticket);
+                throw e;
+            }
+            grant(ticket, System.nanoTime());
+        }
+
+        long waited = System.nanoTime() - start;
+        if (queuedAhead > 0 || waited >= TimeUnit.SECONDS.toNanos(1)) {
+            log.println("Upload slot to " + laneKey + " acquired after " +
+                    TimeUnit.NANOSECONDS.toSeconds(waited) + "s, queue depth was " + (queuedAhead + 1));
+        }
+        return new Permit(ticket.lane);
+    }
+
+    synchronized Ticket enqueue(String laneKey, String owner, long bytes) {
+        Lane lane = lanes.get(laneKey);
+        if (lane == null) {
+            lane = new Lane(laneKey);
+            lanes.put(laneKey, lane);
+        }
+
+        Ticket ticket = new Ticket(lane, owner, bytes);
+        Deque<Ticket> queue = lane.queues.get(owner);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            lane.queues.put(owner, queue);
+        }
+        queue.add(ticket);
+        return ticket;
+    }
+
+    /**
+     * @return 0 if the ticket may start now, nanos to wait for bandwidth,
+     *         or -1 if it waits for its turn or a free slot
+     */
+    synchronized long admissionDelay(Ticket ticket, long now) {
+        Lane lane = ticket.lane;
+        if (lane.head() != ticket || lane.active >= maxConcurrent) {
+            return -1;
+        }
+        if (bytesPerSecond == 0 || lane.admitted == 0) {
+            return 0;
+        }
+        return Math.max(0, lane.nextAdmission - now);
+    }
+
+    synchronized void grant(Ticket ticket, long now) {
+        Lane lane = ticket.lane;
+        Deque<Ticket> queue = lane.queues.remove(ticket.owner);
+        queue.remove(ticket);
+        if (!queue.isEmpty()) {
+            // owner goes to the back of the round
+            lane.queues.put(ticket.owner, queue);
+        }
+
+        if (bytesPerSecond > 0) {
+            long cost = TimeUnit.SECONDS.toNanos(1) * ticket.bytes / bytesPerSecond;
+            long from = lane.admitted == 0 ? now : Math.max(now, lane.nextAdmission);
+            lane.nextAdmission = from + cost;
+        }
+        lane.active++;
+        lane.admitted++;
+        notifyAll();
+    }
+
+    synchronized void cancel(Ticket ticket) {
+        Deque<Ticket> queue = ticket.lane.queues.get(ticket.owner);
+        if (queue != null) {
+            queue.remove(ticket);
+            if (queue.isEmpty()) {
+                ticket.lane.queues.remove(ticket.owner);
+            }
+        }
+        notifyAll();
+    }
+
+    synchronized void release(Lane lane) {
+        lane.active--;
+        notifyAll();
+    }
+
+    public synchronized List<String> getLaneStats() {
+        List<String> stats = new ArrayList<>();
+        for (Lane lane : lanes.values()) {
+            stats.add(lane.key + ": " + lane.active + " uploading, " + lane.queued() + " queued, " +
+                    lane.admitted + " started");
+        }
+        return stats;
+    }
+
+    public class Permit {
+        private final Lane lane;
+        private boolean released;
+
+        Permit(Lane lane) {
+            this.lane = lane;
+        }
+
+        public void release() {
+            synchronized (UploadScheduler.this) {
+                if (!released) {
+                    released = true;
+                    UploadScheduler.this.release(lane);
+                }
+            }
+        }
+    }
+
+    static class Lane {
+        final String key;
+        final LinkedHashMap<String, Deque<Ticket>> queues = new LinkedHashMap<>();
+        int active;
+        long admitted;
+        long nextAdmission;
+
+        Lane(String key) {
+            this.key = key;
+        }
+
+        Ticket head() {
+            Iterator<Deque<Ticket>> it = queues.values().iterator();
+            return it.hasNext() ? it.next().peek() : null;
+        }
+
+        int queued() {
+            int count = 0;
+            for (Deque<Ticket> queue : queues.values()) {
+                count += queue.size();
+            }
+            return count;
+        }
+    }
+
+    static class Ticket {
+        final Lane lane;
+        final String owner;
+        final long bytes;
+
+        Ticket(Lane lane, String owner, long bytes) {
+            this.lane = lane;
+            this.owner = owner;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -1,26 +1,20 @@
 package org.jenkinsci.plugins.ease;
 
-import java.net.InetSocketAddress;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
-import java.net.Proxy;
-import java.net.Proxy.Type;
-import java.net.SocketAddress;
 import java.net.URL;
 import java.text.DateFormat;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
 
-import org.apache.http.HttpHost;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.ProxyAuthenticationStrategy;
-
-import hudson.ProxyConfiguration;
-import jenkins.model.Jenkins;
 
 public class Utils {
     private static final DateFormat ISO_8601_FORMAT;
@@ -61,54 +55,52 @@ public class Utils {
     }
 
     public static HttpClientBuilder configureProxy(HttpClientBuilder builder) {
-        ProxyConfiguration proxyConfig = null;
-        Jenkins jenkins = Jenkins.getInstance();
-        if (jenkins != null) {
-            proxyConfig = jenkins.proxy;
-        }
-        if (proxyConfig == null) {
-            builder.useSystemProperties();
-            return builder;
-        }
+        return ProxySettings.fromJenkins().configure(builder);
+    }
 
-        Proxy proxy = proxyConfig.createProxy(null);
-        if (proxy == null || proxy.type() != Type.HTTP) {
-            return builder;
+    public static String transformDate(String jsonDateString) {
+        int idx = jsonDateString.indexOf('T');
+        if (idx != -1) {
+            return jsonDateString.substring(0, idx);
+        } else {
+            return jsonDateString;
         }
+    }
 
-        SocketAddress addr = proxy.address();
-        if (addr == null || !(addr instanceof InetSocketAddress)) {
-            return builder;
+    public static String sha256Hex(String value) {
+        try {
+            return toHex(newSha256().digest(value.getBytes("UTF-8")));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
         }
+    }
 
-        InetSocketAddress proxyAddr = (InetSocketAddress) addr;
-        HttpHost proxyHost = new HttpHost(proxyAddr.getHostString(),
-                                          proxyAddr.getPort());
-
-        builder.setProxy(proxyHost);
-
-        String proxyUser = proxyConfig.getUserName();
-        if (proxyUser == null) {
-            return builder;
+    public static String sha256Hex(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
         }
+        return toHex(digest.digest());
+    }
 
-        String proxyPass = proxyConfig.getPassword();
-        CredentialsProvider cred = new BasicCredentialsProvider();
-        cred.setCredentials(new AuthScope(proxyHost),
-                            new UsernamePasswordCredentials(proxyUser, proxyPass));
-        builder
-                .setDefaultCredentialsProvider(cred)
-                .setProxyAuthenticationStrategy(new ProxyAuthenticationStrategy());
-
-        return builder;
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
-    public static String transformDate(String jsonDateString) {
-        int idx = jsonDateString.indexOf('T');
-        if (idx != -1) {
-            return jsonDateString.substring(0, idx);
-        } else {
-            return jsonDateString;
+    private static String toHex(byte[] bytes) {
+        StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xF, 16))
+                  .append(Character.forDigit(b & 0xF, 16));
         }
+        return result.toString();
     }
 }
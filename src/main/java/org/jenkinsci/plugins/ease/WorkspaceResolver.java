@@ -0,0 +1,223 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+
+/**
+ * Resolves filename patterns of all uploads in one call to the agent,
+ * walking the workspace once instead of once per upload. Patterns follow
+ * {@link FilePath#list(String)}: comma separated Ant includes with the
+ * default excludes. Directories that are excluded, or that no pattern
+ * could match anything under, are not entered.
+ */
+public class WorkspaceResolver implements FilePath.FileCallable<Map<String, List<WorkspaceResolver.Match>>> {
+    private final List<String> patterns;
+
+    public WorkspaceResolver(Iterable<String> patterns) {
+        this.patterns = new ArrayList<>(new LinkedHashSet<String>(toList(patterns)));
+    }
+
+    /**
+     * Finds the single file of every upload in workspace, reporting
+     * uploads with none or several candidates.
+     *
+     * @return true if every upload has its file
+     */
+    public static boolean searchWorkspace(FilePath workspace,
+                                          List<EaseUpload> uploads,
+                                          PrintStream buildLog) throws IOException, InterruptedException {
+        List<String> patterns = new ArrayList<>(uploads.size());
+        for (EaseUpload upload : uploads) {
+            patterns.add(upload.getFilename());
+        }
+        Map<String, List<Match>> matches = workspace.act(new WorkspaceResolver(patterns));
+
+        boolean ok = true;
+        for (EaseUpload upload : uploads) {
+            ok &= upload.resolve(workspace, matches.get(upload.getFilename()), buildLog);
+        }
+        return ok;
+    }
+
+    public Map<String, List<Match>> invoke(File workspace, VirtualChannel channel) throws IOException {
+        Map<String, List<Match>> result = new LinkedHashMap<>();
+        List<Pattern> compiled = new ArrayList<>(patterns.size());
+        for (String pattern : patterns) {
+            result.put(pattern, new ArrayList<Match>());
+            compiled.add(new Pattern(pattern, result.get(pattern)));
+        }
+        if (workspace.isDirectory()) {
+            walk(workspace, "", compiled, new HashSet<String>());
+        }
+        for (List<Match> matches : result.values()) {
+            Collections.sort(matches);
+        }
+        return result;
+    }
+
+    private void walk(File dir, String relativeDir, List<Pattern> patterns, Set<String> visited) throws IOException {
+        // symlinked directories are followed, as Ant does, but only once
+        if (!visited.add(dir.getCanonicalPath())) {
+            return;
+        }
+        String[] names = dir.list();
+        if (names == null) {
+            return;
+        }
+        Arrays.sort(names);
+        for (String name : names) {
+            File file = new File(dir, name);
+            String relative = relativeDir + name;
+            if (file.isDirectory()) {
+                List<Pattern> candidates = new ArrayList<>(patterns.size());
+                for (Pattern pattern : patterns) {
+                    if (pattern.couldMatchUnder(relative)) {
+                        candidates.add(pattern);
+                    }
+                }
+                if (!candidates.isEmpty()) {
+                    walk(file, relative + File.separatorChar, candidates, visited);
+                }
+            } else {
+                for (Pattern pattern : patterns) {
+                    if (pattern.matches(relative)) {
+                        pattern.found.add(new Match(relative.replace(File.separatorChar, '/'),
+                                                    file.length(),
+                                                    file.lastModified()));
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> toList(Iterable<String> patterns) {
+        List<String> list = new ArrayList<>();
+        for (String pattern : patterns) {
+            list.add(pattern);
+        }
+        return list;
+    }
+
+    private static String normalize(String pattern) {
+        String normalized = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += "**";
+        }
+        return normalized;
+    }
+
+    private static final class Pattern {
+        private static final List<String> DEFAULT_EXCLUDES = new ArrayList<>();
+
+        static {
+            for (String exclude : DirectoryScanner.getDefaultExcludes()) {
+                DEFAULT_EXCLUDES.add(normalize(exclude));
+            }
+        }
+
+        private final List<String> includes = new ArrayList<>();
+        private final List<Match> found;
+
+        Pattern(String pattern, List<Match> found) {
+            this.found = found;
+            StringTokenizer tokens = new StringTokenizer(pattern, ",");
+            while (tokens.hasMoreTokens()) {
+                String include = tokens.nextToken().trim();
+                if (!include.isEmpty()) {
+                    includes.add(normalize(include));
+                }
+            }
+        }
+
+        boolean couldMatchUnder(String relativeDir) {
+            if (isExcluded(relativeDir)) {
+                return false;
+            }
+            for (String include : includes) {
+                if (SelectorUtils.matchPatternStart(include, relativeDir, true)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean matches(String relativePath) {
+            if (isExcluded(relativePath)) {
+                return false;
+            }
+            for (String include : includes) {
+                if (SelectorUtils.matchPath(include, relativePath, true)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isExcluded(String relativePath) {
+            for (String exclude : DEFAULT_EXCLUDES) {
+                if (SelectorUtils.matchPath(exclude, relativePath, true)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * File found for a pattern, path relative to workspace with '/'.
+     */
+    public static final class Match implements Comparable<Match>, Serializable {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+
+        public Match(String path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public int compareTo(Match o) {
+            return path.compareTo(o.path);
+        }
+
+        @Override
+        public String toString() {
+            return path;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final long serialVersionUID = 1L;
+}
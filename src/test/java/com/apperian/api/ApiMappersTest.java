@@ -0,0 +1,54 @@
+package com.apperian.api;
+
+import java.util.HashMap;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.apperian.api.metadata.Metadata;
+
+public class ApiMappersTest {
+    private static final ApperianResourceID ID = new ApperianResourceID("1");
+
+    @Test
+    public void testEveryApperianRequestBodyIsWarmedUp() throws Exception {
+        ApperianRequest[] requests = {
+                ApperianEaseApi.USERS.authenticateUser("user", "secret"),
+                ApperianEaseApi.APPLICATIONS.list(),
+                new com.apperian.api.application.ApplicationListRequest(ID),
+                ApperianEaseApi.APPLICATIONS.updateApplicationMetadata(ID),
+                ApperianEaseApi.APPLICATIONS.getApplicationInfo(ID),
+                ApperianEaseApi.SIGNING.listCredentials(),
+                ApperianEaseApi.SIGNING.signApplication(ID, ID)
+        };
+        ApperianEndpoint endpoint = new ApperianEndpoint("http://localhost");
+        endpoint.restoreSession("token");
+        for (ApperianRequest request : requests) {
+            HttpRequest httpRequest = request.buildHttpRequest(endpoint, endpoint.getMapper());
+            if (httpRequest instanceof HttpEntityEnclosingRequest
+                    && ((HttpEntityEnclosingRequest) httpRequest).getEntity() != null) {
+                assertWarmedUp(request.takeRequestJsonObject().getClass());
+            }
+        }
+    }
+
+    @Test
+    public void testEveryEaseRequestIsWarmedUp() throws Exception {
+        EASERequest[] requests = {
+                ApperianEaseApi.PUBLISHING.authenticateUser("user", "secret"),
+                ApperianEaseApi.PUBLISHING.list(),
+                ApperianEaseApi.PUBLISHING.update("app"),
+                ApperianEaseApi.PUBLISHING.publish("tx", new Metadata(new HashMap<String, String>()), "file")
+        };
+        for (EASERequest request : requests) {
+            assertWarmedUp(request.getClass());
+        }
+        assertWarmedUp(Metadata.class);
+    }
+
+    private static void assertWarmedUp(Class<?> type) {
+        Assert.assertTrue(type + " is not warmed up", ApiMappers.REQUEST_TYPES.contains(type));
+    }
+}
@@ -0,0 +1,73 @@
+package com.apperian.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class ApiMetricsTest {
+    private final ApiMetrics metrics = ApiMetrics.getInstance();
+    private final MetricRegistry registry = metrics.getRegistry();
+
+    @Test
+    public void testCallsAreTimedAndErrorsCounted() {
+        String operation = "testCallsAreTimedAndErrorsCounted";
+
+        metrics.startCall(ApiMetrics.EASE, operation).succeeded(new EASEResponse());
+        metrics.startCall(ApiMetrics.EASE, operation).failed();
+
+        Assert.assertEquals(2, registry.timer("api.ease." + operation + ".latency").getCount());
+        Assert.assertEquals(1, registry.counter("api.ease." + operation + ".errors").getCount());
+        Assert.assertTrue(metrics.describe().containsKey("api.ease." + operation + ".latency"));
+    }
+
+    @Test
+    public void testUploadsAndLoginsAreRecorded() {
+        long uploads = registry.meter("upload.bytes").getCount();
+        long logins = registry.counter("login.apperian.failure").getCount();
+
+        metrics.uploaded(4096, 1000000000L);
+        metrics.login(ApiMetrics.APPERIAN, false);
+
+        Assert.assertEquals(uploads + 4096, registry.meter("upload.bytes").getCount());
+        Assert.assertEquals(logins + 1, registry.counter("login.apperian.failure").getCount());
+    }
+
+    @Test
+    public void testForwardedMeasurementsAreRecorded() throws Exception {
+        String operation = "testForwardedMeasurementsAreRecorded";
+        metrics.startForwarding();
+        metrics.drainForwarded();
+
+        metrics.startCall(ApiMetrics.EASE, operation).failed();
+        metrics.uploaded(1024, 1000000000L);
+        metrics.login(ApiMetrics.EASE, true);
+        ApiMetrics.Measurements measurements = copy(metrics.drainForwarded());
+        Assert.assertEquals(3, measurements.size());
+        Assert.assertEquals(0, metrics.drainForwarded().size());
+
+        long uploads = registry.meter("upload.bytes").getCount();
+        long logins = registry.counter("login.ease.success").getCount();
+        metrics.record(measurements);
+
+        Assert.assertEquals(2, registry.timer("api.ease." + operation + ".latency").getCount());
+        Assert.assertEquals(2, registry.counter("api.ease." + operation + ".errors").getCount());
+        Assert.assertEquals(uploads + 1024, registry.meter("upload.bytes").getCount());
+        Assert.assertEquals(logins + 1, registry.counter("login.ease.success").getCount());
+    }
+
+    private static ApiMetrics.Measurements copy(ApiMetrics.Measurements measurements) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(measurements);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (ApiMetrics.Measurements) in.readObject();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.apperian.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.apperian.api.publishing.UploadResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class ChunkedUploadTest {
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String uploadUrl;
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final AtomicInteger failChunkNumber = new AtomicInteger(-1);
+    private final AtomicInteger chunkRequests = new AtomicInteger();
+    private final AtomicInteger multipartRequests = new AtomicInteger();
+    private volatile boolean rangesSupported = true;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/upload", new UploadHandler());
+        server.start();
+        uploadUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRetriesOnlyFailedChunk() throws Exception {
+        File file = createFile(10 * 1024 + 17);
+        failChunkNumber.set(3);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        ChunkedUploader uploader = new ChunkedUploader(endpoint, new UploadOffsetStore(tmp.newFolder()), 1024, 3);
+
+        UploadResult result = uploader.upload(uploadUrl, "tx1", file);
+
+        Assert.assertNotNull(result);
+        Assert.assertEquals("file-1", result.fileID);
+        Assert.assertArrayEquals(readFile(file), received.toByteArray());
+        // 11 chunks plus one failed attempt
+        Assert.assertEquals(12, chunkRequests.get());
+    }
+
+    @Test
+    public void testResumesFromServerOffset() throws Exception {
+        File file = createFile(4096);
+        byte[] content = readFile(file);
+        received.write(content, 0, 2048);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        ChunkedUploader uploader = new ChunkedUploader(endpoint, new UploadOffsetStore(tmp.newFolder()), 1024, 3);
+
+        UploadResult result = uploader.upload(uploadUrl, "tx2", file);
+
+        Assert.assertEquals("file-1", result.fileID);
+        Assert.assertArrayEquals(content, received.toByteArray());
+        Assert.assertEquals(2, chunkRequests.get());
+    }
+
+    @Test
+    public void testFallsBackToSingleRequest() throws Exception {
+        rangesSupported = false;
+        File file = createFile(3000);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        UploadResult result = endpoint.uploadFileResumable(uploadUrl, "tx3", file,
+                                                           new UploadOffsetStore(tmp.newFolder()));
+
+        Assert.assertEquals("multipart-1", result.fileID);
+        Assert.assertEquals(0, chunkRequests.get());
+        Assert.assertEquals(1, multipartRequests.get());
+    }
+
+    @Test
+    public void testEmptyFileSendsNoZeroLengthRange() throws Exception {
+        File file = createFile(0);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        ChunkedUploader uploader = new ChunkedUploader(endpoint, new UploadOffsetStore(tmp.newFolder()), 1024, 3);
+
+        try {
+            uploader.upload(uploadUrl, "tx5", file);
+            Assert.fail("Empty file uploaded without result");
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("didn't return upload result"));
+        }
+        Assert.assertEquals(0, chunkRequests.get());
+    }
+
+    @Test
+    public void testStoredOffsetAtEndRestartsFromServerOffset() throws Exception {
+        File file = createFile(3000);
+        UploadOffsetStore store = new UploadOffsetStore(tmp.newFolder());
+        store.putOffset(uploadUrl, "tx6", file, 3000);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        UploadResult result = new ChunkedUploader(endpoint, store, 1024, 3).upload(uploadUrl, "tx6", file);
+
+        Assert.assertEquals("file-1", result.fileID);
+        Assert.assertArrayEquals(readFile(file), received.toByteArray());
+        Assert.assertEquals(3, chunkRequests.get());
+    }
+
+    @Test
+    public void testStoredOffsetIsIgnoredWhenServerHasNothing() throws Exception {
+        File file = createFile(3000);
+        UploadOffsetStore store = new UploadOffsetStore(tmp.newFolder());
+        store.putOffset(uploadUrl, "tx7", file, 2048);
+
+        EASEEndpoint endpoint = new EASEEndpoint(uploadUrl);
+        UploadResult result = new ChunkedUploader(endpoint, store, 1024, 3).upload(uploadUrl, "tx7", file);
+
+        Assert.assertEquals("file-1", result.fileID);
+        Assert.assertArrayEquals(readFile(file), received.toByteArray());
+        Assert.assertEquals(3, chunkRequests.get());
+    }
+
+    @Test
+    public void testDefaultStoreIsShared() {
+        Assert.assertSame(UploadOffsetStore.defaultStore(), UploadOffsetStore.defaultStore());
+    }
+
+    @Test
+    public void testOffsetStoreIgnoresChangedFile() throws Exception {
+        File file = createFile(100);
+        UploadOffsetStore store = new UploadOffsetStore(tmp.newFolder());
+        store.putOffset(uploadUrl, "tx4", file, 50);
+        Assert.assertEquals(50, store.getOffset(uploadUrl, "tx4", file));
+
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(1);
+        }
+        Assert.assertEquals(0, store.getOffset(uploadUrl, "tx4", file));
+    }
+
+    private File createFile(int size) throws IOException {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        File file = tmp.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return readAll(in);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private class UploadHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            byte[] body = readAll(exchange.getRequestBody());
+            String method = exchange.getRequestMethod();
+
+            if ("POST".equals(method)) {
+                multipartRequests.incrementAndGet();
+                respond(exchange, 200, "{\"fileID\":\"multipart-1\"}");
+                return;
+            }
+
+            if (!rangesSupported) {
+                respond(exchange, 405, "");
+                return;
+            }
+
+            String contentRange = exchange.getRequestHeaders().getFirst("Content-Range");
+            if (contentRange != null && contentRange.startsWith("bytes */")) {
+                respondIncomplete(exchange);
+                return;
+            }
+
+            Matcher matcher = CONTENT_RANGE.matcher(contentRange == null ? "" : contentRange);
+            if (!matcher.matches()) {
+                respond(exchange, 400, "bad range");
+                return;
+            }
+
+            int chunk = chunkRequests.incrementAndGet();
+            if (chunk == failChunkNumber.get()) {
+                respond(exchange, 503, "try later");
+                return;
+            }
+
+            long start = Long.parseLong(matcher.group(1));
+            long total = Long.parseLong(matcher.group(3));
+            synchronized (received) {
+                if (start != received.size()) {
+                    respond(exchange, 400, "unexpected offset " + start);
+                    return;
+                }
+                received.write(body, 0, body.length);
+                if (received.size() == total) {
+                    respond(exchange, 200, "{\"fileID\":\"file-1\"}");
+                    return;
+                }
+            }
+            respondIncomplete(exchange);
+        }
+
+        private void respondIncomplete(HttpExchange exchange) throws IOException {
+            int size = received.size();
+            if (size > 0) {
+                exchange.getResponseHeaders().add("Range", "bytes=0-" + (size - 1));
+            }
+            exchange.sendResponseHeaders(ChunkedUploader.RESUME_INCOMPLETE, -1);
+            exchange.close();
+        }
+
+        private void respond(HttpExchange exchange, int status, String body) throws IOException {
+            byte[] bytes = body.getBytes("UTF-8");
+            exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        }
+    }
+}
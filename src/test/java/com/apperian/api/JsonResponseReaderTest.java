@@ -0,0 +1,35 @@
+package com.apperian.api;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.entity.StringEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.apperian.api.publishing.UploadResult;
+
+import java.io.ByteArrayInputStream;
+
+public class JsonResponseReaderTest {
+    @Test
+    public void testReadsFromStream() throws Exception {
+        JsonResponseReader reader = new JsonResponseReader(1024);
+        StringEntity entity = new StringEntity("{\"fileID\":\"f1\",\"unknown\":1}", ContentType.APPLICATION_JSON);
+
+        UploadResult result = reader.read(entity, UploadResult.class);
+
+        Assert.assertEquals("f1", result.fileID);
+    }
+
+    @Test(expected = JsonResponseReader.ResponseTooLargeException.class)
+    public void testRejectsDeclaredLength() throws Exception {
+        new JsonResponseReader(8).read(new StringEntity("{\"fileID\":\"f1\"}"), UploadResult.class);
+    }
+
+    @Test(expected = JsonResponseReader.ResponseTooLargeException.class)
+    public void testRejectsChunkedBodyOverLimit() throws Exception {
+        byte[] body = "{\"fileID\":\"0123456789\"}".getBytes("UTF-8");
+        InputStreamEntity entity = new InputStreamEntity(new ByteArrayInputStream(body), -1);
+        new JsonResponseReader(8).read(entity, UploadResult.class);
+    }
+}
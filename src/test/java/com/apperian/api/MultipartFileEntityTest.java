@@ -0,0 +1,82 @@
+package com.apperian.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.http.nio.ContentEncoder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MultipartFileEntityTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testAsciiFilenameIsQuoted() {
+        Assert.assertEquals("form-data; name=\"file\"; filename=\"my \\\"app\\\".ipa\"",
+                MultipartFileEntity.contentDisposition("file", "my \"app\".ipa"));
+    }
+
+    @Test
+    public void testNonAsciiFilenameIsEncoded() {
+        Assert.assertEquals("form-data; name=\"file\"; filename=\"_pp.apk\"; filename*=UTF-8''%C3%A4pp.apk",
+                MultipartFileEntity.contentDisposition("file", "\u00e4pp.apk"));
+    }
+
+    @Test
+    public void testPartiallyAcceptedBytesAreResent() throws Exception {
+        byte[] data = new byte[200 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        File file = tmp.newFile("app.apk");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        MultipartFileEntity entity = new MultipartFileEntity("file", file);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        entity.writeTo(expected);
+
+        LimitingEncoder encoder = new LimitingEncoder(1000);
+        while (!encoder.isCompleted()) {
+            entity.produceContent(encoder, null);
+        }
+        Assert.assertArrayEquals(expected.toByteArray(), encoder.out.toByteArray());
+        Assert.assertEquals(entity.getContentLength(), encoder.out.size());
+    }
+
+    private static class LimitingEncoder implements ContentEncoder {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final int limit;
+        private boolean completed;
+
+        LimitingEncoder(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int n = Math.min(limit, src.remaining());
+            byte[] bytes = new byte[n];
+            src.get(bytes);
+            out.write(bytes);
+            return n;
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+}
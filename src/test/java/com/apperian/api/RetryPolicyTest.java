@@ -0,0 +1,111 @@
+package com.apperian.api;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.apperian.api.metadata.Metadata;
+
+public class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(3, 0, 0);
+
+    @Test
+    public void testClassification() {
+        Assert.assertTrue(policy.isRetryable(apiError(503)));
+        Assert.assertTrue(policy.isRetryable(apiError(429)));
+        Assert.assertTrue(policy.isRetryable(new SocketTimeoutException()));
+        Assert.assertFalse(policy.isRetryable(apiError(404)));
+        Assert.assertFalse(policy.isRetryable(new IOException("broken")));
+        Assert.assertFalse(policy.isRetryable(new RuntimeException("No access")));
+    }
+
+    @Test
+    public void testRetryFlagIsNotSent() throws Exception {
+        Object[] requests = {
+                new com.apperian.api.publishing.AuthenticateUserRequest("user", "secret"),
+                new com.apperian.api.publishing.ApplicationListRequest(),
+                new com.apperian.api.publishing.UpdateApplicationRequest("app"),
+                new com.apperian.api.publishing.PublishApplicationRequest("tx", new Metadata(new HashMap<String, String>()), "file"),
+                new com.apperian.api.application.ApplicationListRequest(new ApperianResourceID("app"))
+        };
+        for (Object request : requests) {
+            String body = ApiMappers.getInstance().writerFor(request.getClass()).writeValueAsString(request);
+            Assert.assertFalse(body, body.contains("idempotent"));
+        }
+    }
+
+    @Test
+    public void testIdempotentCallIsRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        String result = policy.call("list", true, new RetryPolicy.Attempt<String>() {
+            @Override
+            public String run() throws IOException {
+                if (attempts.incrementAndGet() < 3) {
+                    throw apiError(502);
+                }
+                return "ok";
+            }
+        });
+
+        Assert.assertEquals("ok", result);
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testNonIdempotentCallIsNotRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy.call("publish", false, new RetryPolicy.Attempt<String>() {
+                @Override
+                public String run() throws IOException {
+                    attempts.incrementAndGet();
+                    throw apiError(502);
+                }
+            });
+            Assert.fail();
+        } catch (ApiCallException expected) {
+            Assert.assertEquals(502, expected.getStatusCode());
+        }
+        Assert.assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        try {
+            policy.call("list", true, new RetryPolicy.Attempt<String>() {
+                @Override
+                public String run() throws IOException {
+                    attempts.incrementAndGet();
+                    throw new SocketTimeoutException();
+                }
+            });
+            Assert.fail();
+        } catch (SocketTimeoutException expected) {
+        }
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testDelayGrowsUpToMaximum() {
+        RetryPolicy backoff = new RetryPolicy(10, 100, 1000);
+        for (int i = 0; i < 20; i++) {
+            long first = backoff.delayMillis(1);
+            Assert.assertTrue(first >= 50 && first <= 100);
+            long third = backoff.delayMillis(3);
+            Assert.assertTrue(third >= 200 && third <= 400);
+            long capped = backoff.delayMillis(9);
+            Assert.assertTrue(capped >= 500 && capped <= 1000);
+        }
+    }
+
+    private static ApiCallException apiError(int status) {
+        return new ApiCallException(new BasicStatusLine(HttpVersion.HTTP_1_1, status, "status"), "GET /applications");
+    }
+}
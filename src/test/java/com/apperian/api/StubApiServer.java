@@ -0,0 +1,463 @@
+package com.apperian.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.apperian.api.signing.PlatformType;
+import com.apperian.api.signing.SigningStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the EASE JSON-RPC interface, its upload URLs and
+ * the Apperian REST API, for load and latency testing without real accounts.
+ *
+ * Every request is delayed by <code>latencyMillis</code> plus up to
+ * <code>latencyJitterMillis</code>, and answered 503 with probability
+ * <code>failureRate</code>. Signing stays in progress for
+ * <code>signingMillis</code>. Any username and password are accepted
+ * unless {@link #setPassword(String)} is set.
+ *
+ * <pre>
+ * StubApiServer server = new StubApiServer().setLatencyMillis(50).start();
+ * new EASEEndpoint(server.getEaseUrl());
+ * new ApperianEndpoint(server.getApperianUrl());
+ * </pre>
+ */
+public class StubApiServer implements AutoCloseable {
+    private static final Pattern APPLICATION_PATH = Pattern.compile("/applications/([^/]+)");
+    private static final Pattern SIGN_PATH = Pattern.compile("/applications/([^/]+)/credentials/([^/]+)");
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+    static final String EASE_PATH = "/ease.interface.php";
+    static final String UPLOAD_PATH = "/upload/";
+    static final String APPERIAN_PATH = "/v1";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Random random = new Random();
+
+    private volatile long latencyMillis;
+    private volatile long latencyJitterMillis;
+    private volatile double failureRate;
+    private volatile long signingMillis = TimeUnit.SECONDS.toMillis(2);
+    private volatile String password;
+    private volatile int applicationCount = 10;
+
+    private final ConcurrentMap<String, Boolean> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Transaction> transactions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> signingStarted = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicInteger injectedFailures = new AtomicInteger();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public StubApiServer setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public StubApiServer setLatencyJitterMillis(long latencyJitterMillis) {
+        this.latencyJitterMillis = latencyJitterMillis;
+        return this;
+    }
+
+    /**
+     * @param failureRate share of requests, 0 to 1, answered with 503
+     */
+    public StubApiServer setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+        return this;
+    }
+
+    public StubApiServer setSigningMillis(long signingMillis) {
+        this.signingMillis = signingMillis;
+        return this;
+    }
+
+    public StubApiServer setPassword(String password) {
+        this.password = password;
+        return this;
+    }
+
+    public StubApiServer setApplicationCount(int applicationCount) {
+        this.applicationCount = applicationCount;
+        return this;
+    }
+
+    public StubApiServer start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(EASE_PATH, new Handler() {
+            @Override
+            void serve(HttpExchange exchange, byte[] body) throws IOException {
+                serveJsonRpc(exchange, body);
+            }
+        });
+        server.createContext(UPLOAD_PATH, new Handler() {
+            @Override
+            void serve(HttpExchange exchange, byte[] body) throws IOException {
+                serveUpload(exchange, body);
+            }
+        });
+        server.createContext(APPERIAN_PATH, new Handler() {
+            @Override
+            void serve(HttpExchange exchange, byte[] body) throws IOException {
+                serveRest(exchange, body);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getEaseUrl() {
+        return getBaseUrl() + EASE_PATH;
+    }
+
+    public String getApperianUrl() {
+        return getBaseUrl() + APPERIAN_PATH;
+    }
+
+    public int getRequestCount(String operation) {
+        AtomicInteger count = requestCounts.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    public Map<String, AtomicInteger> getRequestCounts() {
+        return requestCounts;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public int getInjectedFailures() {
+        return injectedFailures.get();
+    }
+
+    private void serveJsonRpc(HttpExchange exchange, byte[] body) throws IOException {
+        JsonNode request = mapper.readTree(body);
+        String method = request.path("method").asText();
+        JsonNode params = request.path("params");
+        count(method);
+
+        ObjectNode response = mapper.createObjectNode();
+        response.put("id", request.path("id").asLong());
+        response.put("jsonrpc", APIConstants.JSON_RPC_VERSION);
+        response.put("apiVersion", APIConstants.API_VERSION);
+
+        if (APIConstants.AUTHENTICATE_USER_METHOD.equals(method)) {
+            ObjectNode result = response.putObject("result");
+            if (checkPassword(params.path("password").asText())) {
+                result.put("token", newToken());
+            } else {
+                result.putNull("token");
+            }
+        } else if (!tokens.containsKey(params.path("token").asText())) {
+            error(response, APIConstants.ERROR_CODE_SESSION_EXPIRED, "Session expired");
+        } else if (APIConstants.GET_LIST_METHOD.equals(method)) {
+            ArrayNode applications = response.putObject("result").putArray("applications");
+            for (int i = 0; i < applicationCount; i++) {
+                ObjectNode app = applications.addObject();
+                app.put("ID", "app-" + i);
+                app.put("name", "Application " + i);
+                app.put("bundleId", "com.example.app" + i);
+                app.put("status", "1");
+                app.put("type", i % 2 == 0 ? "iOS" : "Android");
+                app.put("version", "1." + i);
+            }
+        } else if (APIConstants.UPDATE_METHOD.equals(method)) {
+            String appId = params.path("appID").asText();
+            Transaction transaction = new Transaction(appId);
+            transactions.put(transaction.id, transaction);
+
+            ObjectNode result = response.putObject("result");
+            result.put("transactionID", transaction.id);
+            result.put("fileUploadURL", getBaseUrl() + UPLOAD_PATH + transaction.id);
+            ObjectNode metadata = result.putObject("EASEmetadata");
+            metadata.put("name", "Application " + appId);
+            metadata.put("version", "1.0");
+        } else if (APIConstants.PUBLISH_METHOD.equals(method)) {
+            Transaction transaction = transactions.remove(params.path("transactionID").asText());
+            String fileId = params.path("files").path("application").asText();
+            if (transaction == null || !fileId.equals(transaction.fileId)) {
+                error(response, APIConstants.ERROR_CODE_GENERIC, "Unknown transaction or file");
+            } else {
+                ObjectNode result = response.putObject("result");
+                result.put("appID", transaction.appId);
+                result.put("status", "1");
+            }
+        } else {
+            error(response, APIConstants.ERROR_CODE_MISSING_PARAMETER, "Unknown method " + method);
+        }
+        respond(exchange, 200, response);
+    }
+
+    private void serveUpload(HttpExchange exchange, byte[] body) throws IOException {
+        count("upload");
+        String transactionId = exchange.getRequestURI().getPath().substring(UPLOAD_PATH.length());
+        Transaction transaction = transactions.get(transactionId);
+        if (transaction == null) {
+            respond(exchange, 404, "unknown upload " + transactionId);
+            return;
+        }
+
+        if ("POST".equals(exchange.getRequestMethod())) {
+            bytesReceived.addAndGet(body.length);
+            respond(exchange, 200, uploaded(transaction));
+            return;
+        }
+
+        String contentRange = exchange.getRequestHeaders().getFirst("Content-Range");
+        if (contentRange != null && contentRange.startsWith("bytes */")) {
+            respondIncomplete(exchange, transaction);
+            return;
+        }
+
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange == null ? "" : contentRange);
+        if (!matcher.matches()) {
+            respond(exchange, 400, "bad range");
+            return;
+        }
+        long start = Long.parseLong(matcher.group(1));
+        long total = Long.parseLong(matcher.group(3));
+        synchronized (transaction) {
+            if (start != transaction.received) {
+                respond(exchange, 400, "unexpected offset " + start);
+                return;
+            }
+            transaction.received += body.length;
+            bytesReceived.addAndGet(body.length);
+            if (transaction.received < total) {
+                respondIncomplete(exchange, transaction);
+                return;
+            }
+        }
+        respond(exchange, 200, uploaded(transaction));
+    }
+
+    private ObjectNode uploaded(Transaction transaction) {
+        transaction.fileId = "file-" + ids.incrementAndGet();
+        ObjectNode result = mapper.createObjectNode();
+        result.put("fileID", transaction.fileId);
+        return result;
+    }
+
+    private void respondIncomplete(HttpExchange exchange, Transaction transaction) throws IOException {
+        long received;
+        synchronized (transaction) {
+            received = transaction.received;
+        }
+        if (received > 0) {
+            exchange.getResponseHeaders().add("Range", "bytes=0-" + (received - 1));
+        }
+        exchange.sendResponseHeaders(ChunkedUploader.RESUME_INCOMPLETE, -1);
+        exchange.close();
+    }
+
+    private void serveRest(HttpExchange exchange, byte[] body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(APPERIAN_PATH.length());
+
+        if ("POST".equals(method) && "/users/authenticate".equals(path)) {
+            count("POST /users/authenticate");
+            JsonNode params = mapper.readTree(body);
+            if (!checkPassword(params.path("password").asText())) {
+                respond(exchange, 401, "");
+                return;
+            }
+            ObjectNode response = mapper.createObjectNode();
+            response.put("token", newToken());
+            respond(exchange, 200, response);
+            return;
+        }
+
+        if (!tokens.containsKey(String.valueOf(exchange.getRequestHeaders().getFirst(APIConstants.X_TOKEN_HEADER)))) {
+            respond(exchange, 401, "");
+            return;
+        }
+
+        ObjectNode response = mapper.createObjectNode();
+        Matcher sign = SIGN_PATH.matcher(path);
+        Matcher application = APPLICATION_PATH.matcher(path);
+        if ("PUT".equals(method) && sign.matches()) {
+            count("PUT /applications/{id}/credentials/{id}");
+            signingStarted.put(sign.group(1), System.currentTimeMillis());
+            response.put("signing_status", SigningStatus.IN_PROGRESS.getValue());
+            response.put("signing_status_details", "Signing started");
+        } else if ("GET".equals(method) && application.matches()) {
+            count("GET /applications/{id}");
+            SigningStatus status = signingStatus(application.group(1));
+            ObjectNode app = response.putObject("application");
+            app.put("psk", application.group(1));
+            ObjectNode version = app.putObject("version");
+            version.put("signing_status", status.getValue());
+            version.put("signing_status_details", status == SigningStatus.IN_PROGRESS ? "Signing in progress" : "Signed");
+        } else if ("PUT".equals(method) && application.matches()) {
+            count("PUT /applications/{id}");
+            response.put("update_application_result", true);
+        } else if ("GET".equals(method) && "/applications".equals(path)) {
+            count("GET /applications");
+            ArrayNode applications = response.putArray("applications");
+            for (int i = 0; i < applicationCount; i++) {
+                ObjectNode app = applications.addObject();
+                app.put("psk", "app-" + i);
+                app.putObject("version").put("signing_status", SigningStatus.SIGNED.getValue());
+            }
+        } else if ("GET".equals(method) && "/credentials".equals(path)) {
+            count("GET /credentials");
+            ArrayNode credentials = response.putArray("credentials");
+            for (PlatformType platform : PlatformType.values()) {
+                ObjectNode credential = credentials.addObject();
+                credential.put("psk", "cred-" + platform.getOrdinalValue());
+                credential.put("description", platform.getDisplayName() + " credential");
+                credential.put("expiration_date", "2030-01-01");
+                credential.put("platform", platform.getOrdinalValue());
+            }
+        } else {
+            count(method + " " + path);
+            respond(exchange, 404, "unknown path " + path);
+            return;
+        }
+        respond(exchange, 200, response);
+    }
+
+    private SigningStatus signingStatus(String appId) {
+        Long started = signingStarted.get(appId);
+        if (started != null && System.currentTimeMillis() - started < signingMillis) {
+            return SigningStatus.IN_PROGRESS;
+        }
+        return SigningStatus.SIGNED;
+    }
+
+    private boolean checkPassword(String given) {
+        return password == null || password.equals(given);
+    }
+
+    private String newToken() {
+        String token = "token-" + ids.incrementAndGet();
+        tokens.put(token, Boolean.TRUE);
+        return token;
+    }
+
+    private void error(ObjectNode response, int code, String message) {
+        ObjectNode error = response.putObject("error");
+        error.put("code", code);
+        error.put("message", message);
+        error.putObject("data").put(APIConstants.ERROR_FIELD_DETAILED_MESSAGE, message);
+    }
+
+    private void count(String operation) {
+        AtomicInteger count = requestCounts.get(operation);
+        if (count == null) {
+            requestCounts.putIfAbsent(operation, new AtomicInteger());
+            count = requestCounts.get(operation);
+        }
+        count.incrementAndGet();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = body instanceof String
+                ? ((String) body).getBytes("UTF-8")
+                : mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private abstract class Handler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                byte[] body = readAll(exchange.getRequestBody());
+                long delay = latencyMillis;
+                if (latencyJitterMillis > 0) {
+                    synchronized (random) {
+                        delay += (long) (random.nextDouble() * latencyJitterMillis);
+                    }
+                }
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+
+                boolean fail;
+                synchronized (random) {
+                    fail = failureRate > 0 && random.nextDouble() < failureRate;
+                }
+                if (fail) {
+                    injectedFailures.incrementAndGet();
+                    respond(exchange, 503, "injected failure");
+                    return;
+                }
+
+                serve(exchange, body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException ex) {
+                respond(exchange, 500, String.valueOf(ex));
+            } finally {
+                exchange.close();
+            }
+        }
+
+        abstract void serve(HttpExchange exchange, byte[] body) throws IOException;
+    }
+
+    private class Transaction {
+        final String id = "tx-" + ids.incrementAndGet();
+        final String appId;
+        long received;
+        volatile String fileId;
+
+        Transaction(String appId) {
+            this.appId = appId;
+        }
+    }
+}
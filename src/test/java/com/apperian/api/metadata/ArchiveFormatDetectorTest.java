@@ -0,0 +1,64 @@
+package com.apperian.api.metadata;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveFormatDetectorTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testDetectsByContentRegardlessOfName() throws Exception {
+        assertDetected(IOSMetadataExtractor.class, zip("app.bin", "Payload/Demo.app/Info.plist"));
+        assertDetected(AndroidMetadataExtractor.class, zip("app.ipa", "AndroidManifest.xml", "classes.dex"));
+        assertDetected(WinPhoneAppxMetadataExtractor.class, zip("app", "AppxManifest.xml"));
+        assertDetected(BlackberryMetadataExtractor.class, zip("app.apk", "bin/Demo.alx"));
+    }
+
+    @Test
+    public void testNonZipHasNoExtractors() throws Exception {
+        File file = tmp.newFile("app.apk");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not an archive".getBytes("UTF-8"));
+        }
+        Assert.assertFalse(ArchiveFormatDetector.hasZipSignature(file));
+        try (ArchiveIndex archive = new ArchiveIndex(file)) {
+            Assert.assertTrue(MetadataExtractor.extractorsFor(archive).isEmpty());
+        }
+    }
+
+    @Test
+    public void testUnrecognizedFallsBackToExtensionOrder() throws Exception {
+        try (ArchiveIndex archive = new ArchiveIndex(zip("app.appx", "readme.txt"))) {
+            Assert.assertEquals(4, MetadataExtractor.extractorsFor(archive).size());
+            Assert.assertTrue(MetadataExtractor.extractorsFor(archive).get(0) instanceof WinPhoneAppxMetadataExtractor);
+        }
+    }
+
+    private void assertDetected(Class<?> expected, File file) throws IOException {
+        try (ArchiveIndex archive = new ArchiveIndex(file)) {
+            Assert.assertEquals(1, MetadataExtractor.extractorsFor(archive).size());
+            Assert.assertEquals(expected, MetadataExtractor.extractorsFor(archive).get(0).getClass());
+        }
+    }
+
+    private File zip(String name, String... entries) throws IOException {
+        File file = tmp.newFile(name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            for (String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(0);
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+}
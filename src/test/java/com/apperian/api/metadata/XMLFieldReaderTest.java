@@ -0,0 +1,112 @@
+package com.apperian.api.metadata;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class XMLFieldReaderTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final String APPX_MANIFEST =
+            "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n" +
+            "<Package xmlns=\"http://schemas.microsoft.com/appx/2010/manifest\"\n" +
+            "         xmlns:m2=\"http://schemas.microsoft.com/appx/2013/manifest\">\n" +
+            "  <Identity Name=\"Contoso.Demo\" Publisher=\"CN=Contoso\" Version=\"1.2.3.4\"/>\n" +
+            "  <Properties>\n" +
+            "    <DisplayName>Contoso Demo</DisplayName>\n" +
+            "    <PublisherDisplayName><![CDATA[Contoso & Co]]></PublisherDisplayName>\n" +
+            "  </Properties>\n" +
+            "  <Applications>\n" +
+            "    <Application Id=\"App\">\n" +
+            "      <m2:VisualElements DisplayName=\"Demo\" Description=\"Demo app\"/>\n" +
+            "    </Application>\n" +
+            "  </Applications>\n" +
+            "</Package>\n";
+
+    private static final String ALX =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<loader version=\"1.0\">\n" +
+            "  <application id=\"com.example.demo\">\n" +
+            "    <name>\n" +
+            "      Demo\n" +
+            "    </name>\n" +
+            "    <description>Demo application</description>\n" +
+            "    <version>2.0.1</version>\n" +
+            "  </application>\n" +
+            "</loader>\n";
+
+    @Test
+    public void testReadsNamespacedAppxManifest() throws Exception {
+        Map<String, String> fields = new XMLFieldReader(
+                "Package/Properties/DisplayName",
+                "Package/Properties/PublisherDisplayName",
+                "Package/Identity/@Version",
+                "Package/Identity/@Name",
+                "Package/Applications/Application/VisualElements/@Description").read(stream(APPX_MANIFEST));
+
+        Assert.assertEquals("Contoso Demo", fields.get("Package/Properties/DisplayName"));
+        Assert.assertEquals("Contoso & Co", fields.get("Package/Properties/PublisherDisplayName"));
+        Assert.assertEquals("1.2.3.4", fields.get("Package/Identity/@Version"));
+        Assert.assertEquals("Contoso.Demo", fields.get("Package/Identity/@Name"));
+        Assert.assertEquals("Demo app", fields.get("Package/Applications/Application/VisualElements/@Description"));
+    }
+
+    @Test
+    public void testReadsAlxDescriptor() throws Exception {
+        Map<String, String> fields = new XMLFieldReader(
+                "loader/application/name",
+                "loader/application/version",
+                "loader/application/@id",
+                "loader/application/vendor").read(stream(ALX));
+
+        Assert.assertEquals("Demo", fields.get("loader/application/name"));
+        Assert.assertEquals("2.0.1", fields.get("loader/application/version"));
+        Assert.assertEquals("com.example.demo", fields.get("loader/application/@id"));
+        Assert.assertEquals("", fields.get("loader/application/vendor"));
+    }
+
+    @Test
+    public void testExtractorsReportNameVersionAndIdentity() throws Exception {
+        Metadata appx = extract(new WinPhoneAppxMetadataExtractor(), zip("app.appx", "AppxManifest.xml", APPX_MANIFEST));
+        Assert.assertEquals("Contoso Demo", appx.getValues().get(Metadata.KnownFields.NAME));
+        Assert.assertEquals("1.2.3.4", appx.getValues().get(Metadata.KnownFields.VERSION));
+        Assert.assertEquals("Contoso.Demo", appx.getValues().get(Metadata.KnownFields.BUNDLE_ID));
+
+        Metadata alx = extract(new BlackberryMetadataExtractor(), zip("app.zip", "bin/Demo.alx", ALX));
+        Assert.assertEquals("Demo", alx.getValues().get(Metadata.KnownFields.NAME));
+        Assert.assertEquals("2.0.1", alx.getValues().get(Metadata.KnownFields.VERSION));
+        Assert.assertEquals("com.example.demo", alx.getValues().get(Metadata.KnownFields.BUNDLE_ID));
+    }
+
+    private static Metadata extract(MetadataExtractor extractor, File file) {
+        Metadata metadata = new Metadata(new HashMap<String, String>());
+        Assert.assertTrue(extractor.extractTo(metadata, file, new PrintStream(new ByteArrayOutputStream())));
+        return metadata;
+    }
+
+    private File zip(String name, String entry, String content) throws Exception {
+        File file = new File(tmp.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry(entry));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        return file;
+    }
+
+    private static ByteArrayInputStream stream(String xml) throws Exception {
+        return new ByteArrayInputStream(xml.getBytes("UTF-8"));
+    }
+}
@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.ease;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AppIdRulesTest {
+    @Test
+    public void testFirstMatchingRuleWins() {
+        AppIdRules rules = AppIdRules.parse(
+                "# white-label flavors\n" +
+                "white-label/acme/.*\\.apk => ACME\n" +
+                "bundleId:^com\\.example\\.globex$ => GLOBEX\n" +
+                "\n" +
+                "\\.apk$ => OTHER\n");
+
+        Assert.assertFalse(rules.isEmpty());
+        Assert.assertTrue(rules.needsBundleId());
+        Assert.assertEquals("ACME", rules.appIdFor("white-label/acme/app-release.apk", "com.example.acme"));
+        Assert.assertEquals("GLOBEX", rules.appIdFor("white-label/globex/app.ipa", "com.example.globex"));
+        Assert.assertEquals("OTHER", rules.appIdFor("white-label/globex/app.apk", "com.example.globex.beta"));
+        Assert.assertNull(rules.appIdFor("white-label/initech/app.ipa", null));
+    }
+
+    @Test
+    public void testBadRulesAreRejected() {
+        Assert.assertTrue(AppIdRules.parse(null).isEmpty());
+        Assert.assertFalse(AppIdRules.parse(".*\\.apk => APP").needsBundleId());
+        for (String bad : new String[] {"no arrow", " => APP", "bundleId: => APP", "[ => APP", ".*\\.apk =>"}) {
+            try {
+                AppIdRules.parse(bad);
+                Assert.fail("Accepted '" + bad + "'");
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+}
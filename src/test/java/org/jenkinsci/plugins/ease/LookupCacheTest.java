@@ -0,0 +1,168 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LookupCacheTest {
+    @Test
+    public void testFreshValueIsReused() throws Exception {
+        LookupCache<String> cache = new LookupCache<>("test", 60000, 60000, new QueuedExecutor());
+        AtomicInteger loads = new AtomicInteger();
+
+        Assert.assertEquals("value1", cache.get("key", new CountingLoader(loads)));
+        Assert.assertEquals("value1", cache.get("key", new CountingLoader(loads)));
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(50, cache.getHitRate());
+    }
+
+    @Test
+    public void testStaleValueIsServedWhileRefreshing() throws Exception {
+        QueuedExecutor executor = new QueuedExecutor();
+        LookupCache<String> cache = new LookupCache<>("test", 0, 60000, executor);
+        AtomicInteger loads = new AtomicInteger();
+
+        Assert.assertEquals("value1", cache.get("key", new CountingLoader(loads)));
+        Assert.assertEquals("value1", cache.get("key", new CountingLoader(loads)));
+        Assert.assertEquals("value1", cache.get("key", new CountingLoader(loads)));
+
+        Assert.assertEquals(1, executor.tasks.size());
+        executor.runAll();
+
+        Assert.assertEquals("value2", cache.get("key", new CountingLoader(loads)));
+        Assert.assertEquals(3, cache.getStaleHits());
+    }
+
+    @Test
+    public void testFailuresAreNotCached() throws Exception {
+        LookupCache<String> cache = new LookupCache<>("test", 60000, 60000, new QueuedExecutor());
+        try {
+            cache.get("key", new LookupCache.Loader<String>() {
+                @Override
+                public String load() throws IOException {
+                    throw new LookupCache.LookupException("bad credentials");
+                }
+            });
+            Assert.fail();
+        } catch (LookupCache.LookupException expected) {
+            Assert.assertEquals("bad credentials", expected.getMessage());
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testInvalidateForcesReload() throws Exception {
+        LookupCache<String> cache = new LookupCache<>("test", 60000, 60000, new QueuedExecutor());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("key", new CountingLoader(loads));
+        cache.invalidate("key");
+
+        Assert.assertEquals("value2", cache.get("key", new CountingLoader(loads)));
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneLoad() throws Exception {
+        final LookupCache<String> cache = new LookupCache<>("test", 60000, 60000, new QueuedExecutor());
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final LookupCache.Loader<String> loader = new LookupCache.Loader<String>() {
+            @Override
+            public String load() throws IOException {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return "value";
+            }
+        };
+        final AtomicReference<String> first = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    first.set(cache.get("key", loader));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        thread.start();
+        Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                release.countDown();
+            }
+        });
+        releaser.start();
+        Assert.assertEquals("value", cache.get("key", loader));
+        thread.join(10000);
+
+        Assert.assertEquals("value", first.get());
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testEntriesPastStaleLimitAreEvicted() throws Exception {
+        LookupCache<String> cache = new LookupCache<>("test", 0, 0, new QueuedExecutor());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("key1", new CountingLoader(loads));
+        Thread.sleep(5);
+        cache.get("key2", new CountingLoader(loads));
+
+        Assert.assertEquals(1, cache.size());
+    }
+
+    private static class CountingLoader implements LookupCache.Loader<String> {
+        private final AtomicInteger loads;
+
+        CountingLoader(AtomicInteger loads) {
+            this.loads = loads;
+        }
+
+        @Override
+        public String load() {
+            return "value" + loads.incrementAndGet();
+        }
+    }
+
+    private static class QueuedExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            tasks.clear();
+        }
+    }
+}
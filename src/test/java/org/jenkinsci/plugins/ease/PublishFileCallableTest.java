@@ -51,4 +51,24 @@ public class PublishFileCallableTest {
         Assert.assertEquals("version", deserializedCallable.getUpload().getVersionNotes());
 
     }
+
+    @Test
+    public void testAgentCopyCarriesSessionNotPassword() throws Exception {
+        BuildListener listener = mock(BuildListener.class,
+                                      withSettings().serializable());
+
+        AgentSession session = new AgentSession("http://localhost/ease.interface.php", "token1", ProxySettings.DIRECT);
+        PublishFileCallable callable = new PublishFileCallable(EASE_UPLOAD1.withoutPassword(), listener, null, session);
+
+        ByteArrayOutputStream byteOut = new ByteArrayOutputStream();
+        ObjectOutputStream objOut = new ObjectOutputStream(byteOut);
+        objOut.writeObject(callable);
+
+        ObjectInputStream objIn = new ObjectInputStream(new ByteArrayInputStream(byteOut.toByteArray()));
+        PublishFileCallable deserializedCallable = (PublishFileCallable) objIn.readObject();
+
+        Assert.assertEquals("user1", deserializedCallable.getUpload().getUsername());
+        Assert.assertNull(deserializedCallable.getUpload().getPassword());
+        Assert.assertEquals("token1", deserializedCallable.getSession().createEndpoint().getSessionToken());
+    }
 }
\ No newline at end of file
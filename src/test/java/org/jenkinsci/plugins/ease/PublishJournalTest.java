@@ -0,0 +1,115 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PublishJournalTest {
+    private static final String URL = "https://easesvc.apperian.eu/ease.interface.php";
+    private static final long MAX_AGE = TimeUnit.HOURS.toMillis(1);
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testUnfinishedTransactionSurvivesRestart() throws Exception {
+        File file = new File(tmp.getRoot(), "journal.log");
+        PublishJournal journal = new PublishJournal(file, MAX_AGE);
+
+        PublishJournal.Transaction transaction = new PublishJournal.Transaction(URL, "app1", "hash1");
+        transaction.transactionID = "tx1";
+        transaction.fileUploadURL = "https://upload/tx1";
+        transaction.metadata.put("name", "App");
+        journal.record(transaction.withPhase(PublishJournal.Phase.UPDATED));
+        transaction.fileID = "file1";
+        journal.record(transaction.withPhase(PublishJournal.Phase.UPLOADED));
+
+        PublishJournal reloaded = new PublishJournal(file, MAX_AGE);
+        PublishJournal.Transaction pending = reloaded.find(URL, "app1", "hash1");
+        Assert.assertNotNull(pending);
+        Assert.assertEquals(PublishJournal.Phase.UPLOADED, pending.phase);
+        Assert.assertEquals("tx1", pending.transactionID);
+        Assert.assertEquals("file1", pending.fileID);
+        Assert.assertEquals("App", pending.metadata.get("name"));
+        Assert.assertNull(reloaded.find(URL, "app1", "hash2"));
+    }
+
+    @Test
+    public void testCallerChangesAreNotJournaledUntilRecorded() throws Exception {
+        PublishJournal journal = new PublishJournal(new File(tmp.getRoot(), "journal.log"), MAX_AGE);
+
+        PublishJournal.Transaction transaction = new PublishJournal.Transaction(URL, "app1", "hash1");
+        transaction.metadata.put("name", "App");
+        journal.record(transaction.withPhase(PublishJournal.Phase.UPDATED));
+        transaction.fileID = "file1";
+        transaction.metadata.put("name", "Changed");
+
+        PublishJournal.Transaction found = journal.find(URL, "app1", "hash1");
+        Assert.assertNull(found.fileID);
+        Assert.assertEquals("App", found.metadata.get("name"));
+
+        found.withPhase(PublishJournal.Phase.UPLOADED);
+        Assert.assertEquals(PublishJournal.Phase.UPDATED, journal.find(URL, "app1", "hash1").phase);
+    }
+
+    @Test
+    public void testFinishedTransactionIsForgotten() throws Exception {
+        File file = new File(tmp.getRoot(), "journal.log");
+        PublishJournal journal = new PublishJournal(file, MAX_AGE);
+
+        PublishJournal.Transaction published = new PublishJournal.Transaction(URL, "app1", "hash1");
+        journal.record(published.withPhase(PublishJournal.Phase.UPDATED));
+        journal.record(published.withPhase(PublishJournal.Phase.PUBLISHED));
+
+        PublishJournal.Transaction abandoned = new PublishJournal.Transaction(URL, "app2", "hash2");
+        journal.record(abandoned.withPhase(PublishJournal.Phase.UPDATED));
+        journal.record(abandoned.withPhase(PublishJournal.Phase.ABANDONED));
+
+        Assert.assertTrue(new PublishJournal(file, MAX_AGE).getPending().isEmpty());
+    }
+
+    @Test
+    public void testCompactionKeepsOnlyPending() throws Exception {
+        File file = new File(tmp.getRoot(), "journal.log");
+        PublishJournal journal = new PublishJournal(file, MAX_AGE);
+
+        PublishJournal.Transaction kept = new PublishJournal.Transaction(URL, "kept", "hash");
+        journal.record(kept.withPhase(PublishJournal.Phase.UPDATED));
+        for (int i = 0; i < PublishJournal.COMPACT_SLACK * 2; i++) {
+            PublishJournal.Transaction transaction = new PublishJournal.Transaction(URL, "app" + i, "hash" + i);
+            journal.record(transaction.withPhase(PublishJournal.Phase.UPDATED));
+            journal.record(transaction.withPhase(PublishJournal.Phase.PUBLISHED));
+        }
+
+        Assert.assertTrue(journal.getLines() <= 2 * 1 + PublishJournal.COMPACT_SLACK + 1);
+        PublishJournal reloaded = new PublishJournal(file, MAX_AGE);
+        Assert.assertEquals(1, reloaded.getPending().size());
+        Assert.assertNotNull(reloaded.find(URL, "kept", "hash"));
+    }
+
+    @Test
+    public void testTruncatedAndExpiredLinesAreSkipped() throws Exception {
+        File file = new File(tmp.getRoot(), "journal.log");
+        PublishJournal journal = new PublishJournal(file, MAX_AGE);
+
+        PublishJournal.Transaction old = new PublishJournal.Transaction(URL, "old", "hash");
+        old.startedAt = System.currentTimeMillis() - 2 * MAX_AGE;
+        journal.record(old.withPhase(PublishJournal.Phase.UPDATED));
+        PublishJournal.Transaction recent = new PublishJournal.Transaction(URL, "recent", "hash");
+        journal.record(recent.withPhase(PublishJournal.Phase.UPLOADED));
+
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write("{\"easeUrl\":\"https://eas".getBytes("UTF-8"));
+        }
+
+        PublishJournal reloaded = new PublishJournal(file, MAX_AGE);
+        Assert.assertNull(reloaded.find(URL, "old", "hash"));
+        Assert.assertNotNull(reloaded.find(URL, "recent", "hash"));
+    }
+}
@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import hudson.XmlFile;
+
+public class PublishLedgerTest {
+    private static final String URL = "https://easesvc.apperian.eu/ease.interface.php";
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testLatestEntryIsPersisted() throws Exception {
+        File file = new File(tmp.getRoot(), "ledger.xml");
+
+        PublishLedger ledger = PublishLedger.load(new XmlFile(file));
+        Assert.assertNull(ledger.getLatest(URL, "app1"));
+
+        ledger.record(URL, new PublishLedger.Entry("app1", "hash1", "1.0", "file1", 1000L));
+        ledger.record(URL, new PublishLedger.Entry("app1", "hash2", "1.1", "file2", 2000L));
+
+        PublishLedger reloaded = PublishLedger.load(new XmlFile(file));
+        PublishLedger.Entry latest = reloaded.getLatest(URL, "app1");
+        Assert.assertEquals("hash2", latest.getHash());
+        Assert.assertEquals("1.1", latest.getVersion());
+        Assert.assertEquals("file2", latest.getFileID());
+        Assert.assertEquals(2, reloaded.getHistory(URL, "app1").size());
+        Assert.assertNull(reloaded.getLatest("https://other", "app1"));
+    }
+
+    @Test
+    public void testHistoryIsBounded() throws Exception {
+        PublishLedger ledger = PublishLedger.load(new XmlFile(new File(tmp.getRoot(), "ledger.xml")));
+        for (int i = 0; i < PublishLedger.HISTORY_SIZE + 5; i++) {
+            ledger.record(URL, new PublishLedger.Entry("app1", "hash" + i, "1." + i, "file" + i, i));
+        }
+
+        Assert.assertEquals(PublishLedger.HISTORY_SIZE, ledger.getHistory(URL, "app1").size());
+        Assert.assertEquals("hash" + (PublishLedger.HISTORY_SIZE + 4), ledger.getLatest(URL, "app1").getHash());
+    }
+}
@@ -0,0 +1,172 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.fileupload.util.Streams;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import com.apperian.api.StubApiServer;
+
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+/**
+ * Drives {@link PublishFileCallable} from N concurrent builds against
+ * {@link StubApiServer} and reports throughput and latency percentiles.
+ *
+ * Defaults are a quick smoke run; a real load run is tuned with system
+ * properties prefixed with the class name: <code>builds</code>,
+ * <code>uploadsPerBuild</code>, <code>latencyMillis</code>,
+ * <code>latencyJitterMillis</code>, <code>failureRate</code> and
+ * <code>resumable</code>, e.g.
+ * <pre>
+ * mvn test -Dtest=PublishLoadTest -Dorg.jenkinsci.plugins.ease.PublishLoadTest.builds=50
+ * </pre>
+ */
+public class PublishLoadTest {
+    private static final String PROPERTY_PREFIX = PublishLoadTest.class.getName() + ".";
+
+    private static final int BUILDS = Integer.getInteger(PROPERTY_PREFIX + "builds", 4);
+    private static final int UPLOADS_PER_BUILD = Integer.getInteger(PROPERTY_PREFIX + "uploadsPerBuild", 2);
+    private static final long LATENCY_MILLIS = Long.getLong(PROPERTY_PREFIX + "latencyMillis", 20);
+    private static final long LATENCY_JITTER_MILLIS = Long.getLong(PROPERTY_PREFIX + "latencyJitterMillis", 10);
+    private static final double FAILURE_RATE = Double.parseDouble(System.getProperty(PROPERTY_PREFIX + "failureRate", "0"));
+    private static final boolean RESUMABLE = Boolean.getBoolean(PROPERTY_PREFIX + "resumable");
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private StubApiServer server;
+
+    @Before
+    public void startServer() throws Exception {
+        server = new StubApiServer()
+                .setLatencyMillis(LATENCY_MILLIS)
+                .setLatencyJitterMillis(LATENCY_JITTER_MILLIS)
+                .setFailureRate(FAILURE_RATE)
+                .start();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void testConcurrentBuilds() throws Exception {
+        final File apk = copyResource("android.apk");
+
+        ExecutorService builds = Executors.newFixedThreadPool(BUILDS);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < BUILDS; i++) {
+            final String appId = "app-" + i;
+            futures.add(builds.submit(new Callable<List<Long>>() {
+                @Override
+                public List<Long> call() throws Exception {
+                    return runBuild(appId, apk);
+                }
+            }));
+        }
+
+        List<Long> latencies = new ArrayList<>();
+        int failed = 0;
+        for (Future<List<Long>> future : futures) {
+            for (Long latency : future.get()) {
+                if (latency < 0) {
+                    failed++;
+                } else {
+                    latencies.add(latency);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        builds.shutdown();
+
+        report(latencies, failed, elapsed);
+        if (FAILURE_RATE == 0) {
+            Assert.assertEquals("failed publishes", 0, failed);
+            Assert.assertEquals(BUILDS * UPLOADS_PER_BUILD, server.getRequestCount("com.apperian.eas.apps.publish"));
+        }
+    }
+
+    /**
+     * @return publish latencies in nanos, -1 for every failed publish
+     */
+    private List<Long> runBuild(String appId, File apk) throws Exception {
+        EaseUpload upload = new EaseUpload("CUSTOM", server.getEaseUrl(), server.getApperianUrl(),
+                "load@example.com", "secret", appId, apk.getName(), "author", "1.0", "load test",
+                false, null, false, RESUMABLE, true);
+
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < UPLOADS_PER_BUILD; i++) {
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            BuildListener listener = new StreamBuildListener(log);
+
+            long start = System.nanoTime();
+            PublishResult result = new PublishFileCallable(upload, listener).invoke(apk, null);
+            if (result.isSuccess()) {
+                latencies.add(System.nanoTime() - start);
+            } else {
+                latencies.add(-1L);
+                System.out.println("Publish of " + appId + " failed:\n" + log);
+            }
+        }
+        return latencies;
+    }
+
+    private void report(List<Long> latencies, int failed, long elapsedNanos) {
+        Collections.sort(latencies);
+        int total = latencies.size() + failed;
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.println(String.format("%d builds x %d uploads, latency %d+%dms, failure rate %.2f%s",
+                BUILDS, UPLOADS_PER_BUILD, LATENCY_MILLIS, LATENCY_JITTER_MILLIS, FAILURE_RATE,
+                RESUMABLE ? ", resumable" : ""));
+        System.out.println(String.format("%d publishes (%d failed) in %.1fs, %.1f publishes/s, %.1f KB/s uploaded",
+                total, failed, seconds, total / seconds, server.getBytesReceived() / 1024.0 / seconds));
+        if (!latencies.isEmpty()) {
+            System.out.println(String.format("latency p50=%dms p95=%dms max=%dms",
+                    percentileMillis(latencies, 50),
+                    percentileMillis(latencies, 95),
+                    percentileMillis(latencies, 100)));
+        }
+        System.out.println("injected failures: " + server.getInjectedFailures() +
+                ", requests: " + server.getRequestCounts());
+    }
+
+    private static long percentileMillis(List<Long> sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return TimeUnit.NANOSECONDS.toMillis(sorted.get(Math.max(0, index)));
+    }
+
+    private File copyResource(String name) throws Exception {
+        File file = new File(tmp.getRoot(), name);
+        try (InputStream in = getClass().getResourceAsStream(name);
+             FileOutputStream out = new FileOutputStream(file)) {
+            Streams.copy(in, out, false);
+        }
+        return file;
+    }
+}
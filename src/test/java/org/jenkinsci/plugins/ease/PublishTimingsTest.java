@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PublishTimingsTest {
+    @Test
+    public void testSpansAreRecordedOnceInOrder() throws Exception {
+        PublishTimings timings = new PublishTimings();
+
+        try (PublishTimings.Span span = timings.start(PublishTimings.HASH)) {
+            Thread.sleep(5);
+        }
+        PublishTimings.Span upload = timings.start(PublishTimings.UPLOAD).setBytes(2048);
+        upload.close();
+        upload.close();
+
+        Assert.assertEquals(2, timings.getSpans().size());
+        Assert.assertEquals(PublishTimings.HASH, timings.getSpans().get(0).getPhase());
+        Assert.assertEquals(PublishTimings.UPLOAD, timings.getSpans().get(1).getPhase());
+        Assert.assertTrue(timings.getTotalMillis() >= 5);
+    }
+
+    @Test
+    public void testSummaryListsEveryPhase() {
+        PublishTimings agent = new PublishTimings();
+        agent.start(PublishTimings.UPDATE).close();
+        agent.start(PublishTimings.UPLOAD).setBytes(1024).close();
+
+        PublishTimings timings = new PublishTimings();
+        timings.start(PublishTimings.QUEUE).close();
+        timings.addAll(agent);
+        timings.start(PublishTimings.SIGN).close();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        timings.printSummary(new PrintStream(out, true));
+        String summary = out.toString();
+
+        for (String phase : new String[]{PublishTimings.QUEUE, PublishTimings.UPDATE, PublishTimings.UPLOAD, PublishTimings.SIGN, "total"}) {
+            Assert.assertTrue(summary, summary.contains(phase));
+        }
+        Assert.assertTrue(summary, summary.contains("1024 bytes"));
+    }
+}
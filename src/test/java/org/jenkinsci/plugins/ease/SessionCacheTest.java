@@ -0,0 +1,131 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.apperian.api.JsonHttpEndpoint;
+
+public class SessionCacheTest {
+    private static final EaseUser USER = new EaseUser("user1", "pass1", "test");
+
+    @Test
+    public void testReusesCachedToken() throws Exception {
+        SessionCache cache = new SessionCache(TimeUnit.MINUTES.toMillis(5));
+        AtomicInteger logins = new AtomicInteger();
+
+        CountingEndpoint first = new CountingEndpoint("http://localhost/first", logins, null);
+        CountingEndpoint second = new CountingEndpoint("http://localhost/first", logins, null);
+
+        Assert.assertTrue(cache.login(first, USER));
+        Assert.assertTrue(cache.login(second, USER));
+
+        Assert.assertEquals(1, logins.get());
+        Assert.assertEquals(first.getSessionToken(), second.getSessionToken());
+    }
+
+    @Test
+    public void testDifferentPasswordLogsInAgain() throws Exception {
+        SessionCache cache = new SessionCache(TimeUnit.MINUTES.toMillis(5));
+        AtomicInteger logins = new AtomicInteger();
+
+        Assert.assertTrue(cache.login(new CountingEndpoint("http://localhost/a", logins, null), USER));
+        Assert.assertTrue(cache.login(new CountingEndpoint("http://localhost/a", logins, null),
+                                      new EaseUser("user1", "other", "test")));
+
+        Assert.assertEquals(2, logins.get());
+    }
+
+    @Test
+    public void testInvalidateForcesRelogin() throws Exception {
+        SessionCache cache = new SessionCache(TimeUnit.MINUTES.toMillis(5));
+        AtomicInteger logins = new AtomicInteger();
+
+        CountingEndpoint endpoint = new CountingEndpoint("http://localhost/b", logins, null);
+        Assert.assertTrue(cache.login(endpoint, USER));
+        cache.invalidate(endpoint, USER, endpoint.getSessionToken());
+        Assert.assertTrue(cache.login(endpoint, USER));
+
+        Assert.assertEquals(2, logins.get());
+    }
+
+    @Test
+    public void testConcurrentLoginsAreCollapsed() throws Exception {
+        final SessionCache cache = new SessionCache(TimeUnit.MINUTES.toMillis(5));
+        final AtomicInteger logins = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger succeeded = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    CountingEndpoint endpoint = new CountingEndpoint("http://localhost/c", logins, release);
+                    if (cache.login(endpoint, USER)) {
+                        succeeded.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        Thread.sleep(200);
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        Assert.assertEquals(8, succeeded.get());
+        Assert.assertEquals(1, logins.get());
+    }
+
+    @Test
+    public void testFailedLoginIsNotCached() throws Exception {
+        SessionCache cache = new SessionCache(TimeUnit.MINUTES.toMillis(5));
+        AtomicInteger logins = new AtomicInteger();
+
+        EaseUser badUser = new EaseUser("user1", "bad", "test");
+        CountingEndpoint endpoint = new CountingEndpoint("http://localhost/d", logins, null);
+        Assert.assertFalse(cache.login(endpoint, badUser));
+        Assert.assertFalse(cache.login(endpoint, badUser));
+
+        Assert.assertEquals(2, logins.get());
+        Assert.assertEquals("No access", endpoint.getLastLoginError());
+    }
+
+    private static class CountingEndpoint extends JsonHttpEndpoint {
+        private final AtomicInteger logins;
+        private final CountDownLatch release;
+
+        CountingEndpoint(String url, AtomicInteger logins, CountDownLatch release) {
+            super(url);
+            this.logins = logins;
+            this.release = release;
+        }
+
+        @Override
+        public boolean tryLogin(String email, String password) {
+            int count = logins.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if ("bad".equals(password)) {
+                lastLoginError = "No access";
+                return false;
+            }
+            sessionToken = "token-" + count;
+            return true;
+        }
+    }
+}
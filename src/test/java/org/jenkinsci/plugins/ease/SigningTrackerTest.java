@@ -0,0 +1,120 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.apperian.api.ApperianEndpoint;
+import com.apperian.api.ApperianResourceID;
+import com.apperian.api.signing.SigningStatus;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class SigningTrackerTest {
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final ApperianEndpoint endpoint = new ApperianEndpoint("http://localhost/apperian");
+    private SigningTracker tracker;
+
+    @After
+    public void tearDown() {
+        if (tracker != null) {
+            tracker.shutdown();
+        }
+    }
+
+    @Test
+    public void testWaitersOfSameApplicationShareOnePoll() throws Exception {
+        final AtomicInteger polls = new AtomicInteger();
+        tracker = new SigningTracker(new SigningTracker.StatusSource() {
+            @Override
+            public SigningTracker.Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) {
+                polls.incrementAndGet();
+                return new SigningTracker.Status(SigningStatus.SIGNED, "signed");
+            }
+        }, HOUR, HOUR, 0, 2 * HOUR);
+
+        ListenableFuture<SigningTracker.Status> first = tracker.track(endpoint, new ApperianResourceID("app1"), null);
+        ListenableFuture<SigningTracker.Status> second = tracker.track(endpoint, new ApperianResourceID("app1"), null);
+
+        List<SigningTracker.Signing> due = tracker.tick(System.currentTimeMillis() + HOUR);
+        Assert.assertEquals(1, due.size());
+        tracker.poll(due.get(0));
+
+        Assert.assertEquals(SigningStatus.SIGNED, first.get(5, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(SigningStatus.SIGNED, second.get(5, TimeUnit.SECONDS).getStatus());
+        Assert.assertEquals(1, polls.get());
+        Assert.assertEquals(0, tracker.getInFlight());
+    }
+
+    @Test
+    public void testListenersRunOutsideTrackerLock() throws Exception {
+        tracker = new SigningTracker(new SigningTracker.StatusSource() {
+            @Override
+            public SigningTracker.Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) {
+                return new SigningTracker.Status(SigningStatus.SIGNED, "signed");
+            }
+        }, HOUR, HOUR, 0, 2 * HOUR);
+
+        ListenableFuture<SigningTracker.Status> future = tracker.track(endpoint, new ApperianResourceID("app1"), null);
+        final AtomicBoolean lockHeld = new AtomicBoolean(true);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                lockHeld.set(Thread.holdsLock(tracker));
+            }
+        }, MoreExecutors.sameThreadExecutor());
+
+        tracker.poll(tracker.tick(System.currentTimeMillis() + HOUR).get(0));
+
+        Assert.assertTrue(future.isDone());
+        Assert.assertFalse(lockHeld.get());
+    }
+
+    @Test
+    public void testInProgressBacksOff() throws Exception {
+        tracker = new SigningTracker(new SigningTracker.StatusSource() {
+            @Override
+            public SigningTracker.Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) {
+                return new SigningTracker.Status(SigningStatus.IN_PROGRESS, "in progress");
+            }
+        }, HOUR, 2 * HOUR, 0, 10 * HOUR);
+
+        ListenableFuture<SigningTracker.Status> future = tracker.track(endpoint, new ApperianResourceID("app1"), null);
+        long now = System.currentTimeMillis();
+        SigningTracker.Signing signing = tracker.tick(now + HOUR).get(0);
+        tracker.poll(signing);
+
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals((long) (HOUR * SigningTracker.BACKOFF_MULTIPLIER), signing.intervalMillis);
+        Assert.assertTrue(tracker.tick(now + HOUR + 1).isEmpty());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        tracker = new SigningTracker(new SigningTracker.StatusSource() {
+            @Override
+            public SigningTracker.Status getStatus(ApperianEndpoint endpoint, ApperianResourceID appId) throws IOException {
+                throw new IOException("not expected");
+            }
+        }, HOUR, HOUR, 0, HOUR);
+
+        ListenableFuture<SigningTracker.Status> future = tracker.track(endpoint, new ApperianResourceID("app1"), null);
+        tracker.tick(System.currentTimeMillis() + 2 * HOUR);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.jenkinsci.plugins.ease;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UploadSchedulerTest {
+    private static final String LANE = "https://easesvc.apperian.com/ease.interface.php";
+
+    @Test
+    public void testSlotsAreSharedRoundRobinAcrossJobs() {
+        UploadScheduler scheduler = new UploadScheduler(1, 0);
+
+        UploadScheduler.Ticket a1 = scheduler.enqueue(LANE, "jobA", 1);
+        UploadScheduler.Ticket a2 = scheduler.enqueue(LANE, "jobA", 1);
+        UploadScheduler.Ticket a3 = scheduler.enqueue(LANE, "jobA", 1);
+        UploadScheduler.Ticket b1 = scheduler.enqueue(LANE, "jobB", 1);
+
+        Assert.assertEquals(0, scheduler.admissionDelay(a1, 0));
+        Assert.assertEquals(-1, scheduler.admissionDelay(b1, 0));
+        scheduler.grant(a1, 0);
+        Assert.assertEquals(-1, scheduler.admissionDelay(b1, 0));
+
+        scheduler.release(a1.lane);
+        Assert.assertEquals(-1, scheduler.admissionDelay(a2, 0));
+        Assert.assertEquals(0, scheduler.admissionDelay(b1, 0));
+        scheduler.grant(b1, 0);
+        scheduler.release(b1.lane);
+
+        Assert.assertEquals(0, scheduler.admissionDelay(a2, 0));
+        scheduler.grant(a2, 0);
+        scheduler.release(a2.lane);
+        Assert.assertEquals(0, scheduler.admissionDelay(a3, 0));
+    }
+
+    @Test
+    public void testLanesAreIndependent() {
+        UploadScheduler scheduler = new UploadScheduler(1, 0);
+
+        UploadScheduler.Ticket first = scheduler.enqueue(LANE, "jobA", 1);
+        scheduler.grant(first, 0);
+
+        UploadScheduler.Ticket other = scheduler.enqueue("https://custom/ease.interface.php", "jobA", 1);
+        Assert.assertEquals(0, scheduler.admissionDelay(other, 0));
+    }
+
+    @Test
+    public void testAdmissionIsPacedByBandwidth() {
+        UploadScheduler scheduler = new UploadScheduler(4, 1000);
+
+        UploadScheduler.Ticket first = scheduler.enqueue(LANE, "jobA", 2000);
+        UploadScheduler.Ticket second = scheduler.enqueue(LANE, "jobB", 10);
+
+        long now = TimeUnit.SECONDS.toNanos(100);
+        Assert.assertEquals(0, scheduler.admissionDelay(first, now));
+        scheduler.grant(first, now);
+
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(2), scheduler.admissionDelay(second, now));
+        Assert.assertEquals(0, scheduler.admissionDelay(second, now + TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test
+    public void testCancelledTicketLeavesQueue() {
+        UploadScheduler scheduler = new UploadScheduler(1, 0);
+
+        UploadScheduler.Ticket a1 = scheduler.enqueue(LANE, "jobA", 1);
+        UploadScheduler.Ticket b1 = scheduler.enqueue(LANE, "jobB", 1);
+        scheduler.cancel(a1);
+
+        Assert.assertEquals(0, scheduler.admissionDelay(b1, 0));
+    }
+}
@@ -81,7 +81,7 @@ public class UploadTest {
 
         PublishFileCallable callable = new PublishFileCallable(upload,
                                                                listener);
-        Assert.assertTrue("upload succeeds", callable.invoke(tmpFile, null));
+        Assert.assertTrue("upload succeeds", callable.invoke(tmpFile, null).isSuccess());
         if (res != null) {
             tmpFile.delete();
         }
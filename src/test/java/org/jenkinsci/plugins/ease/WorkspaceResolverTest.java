@@ -0,0 +1,57 @@
+package org.jenkinsci.plugins.ease;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorkspaceResolverTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testResolvesAllPatternsInOneWalk() throws Exception {
+        File workspace = tmp.getRoot();
+        write(workspace, "android/build/outputs/app-release.apk", 10);
+        write(workspace, "android/build/outputs/app-debug.apk", 5);
+        write(workspace, "ios/build/App.ipa", 20);
+        write(workspace, "ios/build/App.dSYM.zip", 1);
+        write(workspace, ".git/objects/app.apk", 1);
+
+        Map<String, List<WorkspaceResolver.Match>> matches = new WorkspaceResolver(Arrays.asList(
+                "**/*-release.apk", "ios/**/*.ipa", "**/*.apk", "**/*.appx, **/*.bar")).invoke(workspace, null);
+
+        List<WorkspaceResolver.Match> release = matches.get("**/*-release.apk");
+        Assert.assertEquals(1, release.size());
+        Assert.assertEquals("android/build/outputs/app-release.apk", release.get(0).getPath());
+        Assert.assertEquals(10, release.get(0).getSize());
+        Assert.assertTrue(release.get(0).getLastModified() > 0);
+
+        Assert.assertEquals("ios/build/App.ipa", matches.get("ios/**/*.ipa").get(0).getPath());
+        Assert.assertEquals("[android/build/outputs/app-debug.apk, android/build/outputs/app-release.apk]",
+                            matches.get("**/*.apk").toString());
+        Assert.assertTrue(matches.get("**/*.appx, **/*.bar").isEmpty());
+    }
+
+    @Test
+    public void testMissingWorkspaceHasNoMatches() throws Exception {
+        Map<String, List<WorkspaceResolver.Match>> matches = new WorkspaceResolver(Arrays.asList("**/*.apk"))
+                .invoke(new File(tmp.getRoot(), "missing"), null);
+        Assert.assertTrue(matches.get("**/*.apk").isEmpty());
+    }
+
+    private static void write(File workspace, String path, int size) throws IOException {
+        File file = new File(workspace, path);
+        file.getParentFile().mkdirs();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[size]);
+        }
+    }
+}